@@ -0,0 +1,938 @@
+package net.coderodde.util;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This list implements the same AVL-tree of ring buffer blocks as
+ * {@link BlockTreeList}, but instead of allocating a node object and a
+ * separate element array for each block, it keeps all the node metadata in
+ * parallel primitive arrays indexed by node ID, and all the elements in a
+ * single element arena. The block with ID {@code i} occupies the arena
+ * components {@code i * blockNodeCapacity} through
+ * {@code (i + 1) * blockNodeCapacity - 1}. The IDs of removed nodes are
+ * recycled through a free list. Like {@link BlockTreeList}, this list is both
+ * a {@link java.util.List} and a {@link Deque}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6
+ */
+public class ArenaBlockTreeList<E> extends AbstractList<E>
+                                   implements Deque<E>, Serializable {
+
+    /**
+     * Denotes the absence of a node.
+     */
+    private static final int NIL = -1;
+
+    /**
+     * The minimum allowed (and possible) capacity of each block node.
+     */
+    private static final int MINIMUM_BLOCK_NODE_CAPACITY = 1;
+
+    /**
+     * The default capacity of each node block.
+     */
+    private static final int DEFAULT_BLOCK_NODE_CAPACITY = 25;
+
+    /**
+     * The initial number of node slots in the metadata arrays.
+     */
+    private static final int INITIAL_NODE_ARRAY_CAPACITY = 8;
+
+    /**
+     * Maps each node ID to the ID of its left child.
+     */
+    private int[] left;
+
+    /**
+     * Maps each node ID to the ID of its right child.
+     */
+    private int[] right;
+
+    /**
+     * Maps each node ID to the ID of its parent.
+     */
+    private int[] parent;
+
+    /**
+     * Maps each node ID to the ID of its predecessor block node. For the nodes
+     * in the free list, points to the next free node.
+     */
+    private int[] prev;
+
+    /**
+     * Maps each node ID to the ID of its successor block node.
+     */
+    private int[] next;
+
+    /**
+     * Maps each node ID to the number of elements in its left subtree.
+     */
+    private int[] leftCount;
+
+    /**
+     * Maps each node ID to the number of elements in its block.
+     */
+    private int[] blockSize;
+
+    /**
+     * Maps each node ID to the physical index (relative to the beginning of
+     * the block in the arena) of the logically first element of the block.
+     */
+    private int[] headIndex;
+
+    /**
+     * Maps each node ID to its height. Leaves have height of zero (0).
+     */
+    private int[] height;
+
+    /**
+     * The element arena holding the blocks of all the nodes.
+     */
+    private Object[] elements;
+
+    /**
+     * The number of node IDs ever handed out since the last clearing. All the
+     * IDs at least this value are unused and not in the free list.
+     */
+    private int allocatedNodes;
+
+    /**
+     * The ID of the first node in the free list.
+     */
+    private int freeListHead = NIL;
+
+    /**
+     * The ID of the root node.
+     */
+    private int root = NIL;
+
+    /**
+     * The ID of the very first block node.
+     */
+    private int head = NIL;
+
+    /**
+     * The ID of the very last block node.
+     */
+    private int tail = NIL;
+
+    /**
+     * The number of elements in this list.
+     */
+    private int size;
+
+    /**
+     * Holds the number of blocks in this tree list.
+     */
+    private int blocks;
+
+    /**
+     * The capacity of all the block nodes.
+     */
+    private final int blockNodeCapacity;
+
+    /**
+     * Constructs an empty tree list with default block capacity.
+     */
+    public ArenaBlockTreeList() {
+        this(DEFAULT_BLOCK_NODE_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty tree list whose block nodes have capacity
+     * {@code requestedBlockNodeCapacity}.
+     *
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     */
+    public ArenaBlockTreeList(int requestedBlockNodeCapacity) {
+        this.blockNodeCapacity = Math.max(requestedBlockNodeCapacity,
+                                          MINIMUM_BLOCK_NODE_CAPACITY);
+        allocateArrays(Math.min(INITIAL_NODE_ARRAY_CAPACITY,
+                                maximumNodeArrayCapacity()));
+    }
+
+    @Override
+    public void addFirst(E e) {
+        if (root == NIL) {
+            root = allocateNode();
+            head = root;
+            tail = root;
+            append(root, e);
+            blocks = 1;
+        } else if (isFull(head)) {
+            int newNode = allocateNode();
+
+            append(newNode, e);
+            parent[newNode] = head;
+            left[head] = newNode;
+            prev[head] = newNode;
+            next[newNode] = head;
+            head = newNode;
+            blocks++;
+
+            // Now restore the AVL-tree invariants:
+            updateLeftCounts(newNode, 1);
+            fixAfterInsertion(newNode);
+        } else {
+            prepend(head, e);
+            updateLeftCounts(head, 1);
+        }
+
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public void addLast(E e) {
+        if (root == NIL) {
+            root = allocateNode();
+            head = root;
+            tail = root;
+            append(root, e);
+            blocks = 1;
+        } else if (isFull(tail)) {
+            int newNode = allocateNode();
+
+            append(newNode, e);
+            parent[newNode] = tail;
+            right[tail] = newNode;
+            next[tail] = newNode;
+            prev[newNode] = tail;
+            tail = newNode;
+            blocks++;
+
+            // Now restore the AVL-tree invariant:
+            updateLeftCounts(parent[newNode], 1);
+            fixAfterInsertion(newNode);
+        } else {
+            append(tail, e);
+        }
+
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public E removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("Removing from an empty list.");
+        }
+
+        int node = head;
+        int index = physicalIndex(node, 0);
+        E element = (E) elements[index];
+        elements[index] = null;
+        headIndex[node] = (headIndex[node] + 1) % blockNodeCapacity;
+        blockSize[node]--;
+        updateLeftCounts(node, -1);
+
+        if (blockSize[node] == 0) {
+            // The head node has no left child.
+            int child = right[node];
+            int nodeParent = parent[node];
+            replaceChild(nodeParent, node, child);
+
+            if (child != NIL) {
+                parent[child] = nodeParent;
+            }
+
+            head = next[node];
+
+            if (head == NIL) {
+                tail = NIL;
+            } else {
+                prev[head] = NIL;
+            }
+
+            freeNode(node);
+            blocks--;
+            fixAfterDeletion(nodeParent);
+        }
+
+        size--;
+        modCount++;
+        return element;
+    }
+
+    @Override
+    public E removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Removing from an empty list.");
+        }
+
+        int node = tail;
+        int index = physicalIndex(node, blockSize[node] - 1);
+        E element = (E) elements[index];
+        elements[index] = null;
+        blockSize[node]--;
+
+        if (blockSize[node] == 0) {
+            // The tail node has no right child.
+            int child = left[node];
+            int nodeParent = parent[node];
+            replaceChild(nodeParent, node, child);
+
+            if (child != NIL) {
+                parent[child] = nodeParent;
+            }
+
+            tail = prev[node];
+
+            if (tail == NIL) {
+                head = NIL;
+            } else {
+                next[tail] = NIL;
+            }
+
+            freeNode(node);
+            blocks--;
+            fixAfterDeletion(nodeParent);
+        }
+
+        size--;
+        modCount++;
+        return element;
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public E pollFirst() {
+        return size == 0 ? null : removeFirst();
+    }
+
+    @Override
+    public E pollLast() {
+        return size == 0 ? null : removeLast();
+    }
+
+    @Override
+    public E getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("Reading from an empty list.");
+        }
+
+        return (E) elements[physicalIndex(head, 0)];
+    }
+
+    @Override
+    public E getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Reading from an empty list.");
+        }
+
+        return (E) elements[physicalIndex(tail, blockSize[tail] - 1)];
+    }
+
+    @Override
+    public E peekFirst() {
+        return size == 0 ? null : getFirst();
+    }
+
+    @Override
+    public E peekLast() {
+        return size == 0 ? null : getLast();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        int index = 0;
+
+        for (int node = head; node != NIL; node = next[node]) {
+            for (int i = 0; i < blockSize[node]; i++, index++) {
+                if (Objects.equals(o, elements[physicalIndex(node, i)])) {
+                    remove(index);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        int index = size - 1;
+
+        for (int node = tail; node != NIL; node = prev[node]) {
+            for (int i = blockSize[node] - 1; i >= 0; i--, index--) {
+                if (Objects.equals(o, elements[physicalIndex(node, i)])) {
+                    remove(index);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new DescendingIterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        accessRangeCheck(index);
+        int node = root;
+
+        while (true) {
+            if (index >= leftCount[node] + blockSize[node]) {
+                index -= leftCount[node] + blockSize[node];
+                node = right[node];
+            } else if (index < leftCount[node]) {
+                node = left[node];
+            } else {
+                return (E) elements[
+                        physicalIndex(node, index - leftCount[node])];
+            }
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        accessRangeCheck(index);
+        int node = root;
+
+        while (true) {
+            if (index >= leftCount[node] + blockSize[node]) {
+                index -= leftCount[node] + blockSize[node];
+                node = right[node];
+            } else if (index < leftCount[node]) {
+                node = left[node];
+            } else {
+                int physicalIndex =
+                        physicalIndex(node, index - leftCount[node]);
+
+                E oldElement = (E) elements[physicalIndex];
+                elements[physicalIndex] = element;
+                return oldElement;
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the given index. The shorter side of its block
+     * is shifted, and a block that becomes empty is deleted from the tree.
+     *
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     */
+    @Override
+    public E remove(int index) {
+        accessRangeCheck(index);
+        int node = root;
+
+        while (true) {
+            if (index >= leftCount[node] + blockSize[node]) {
+                index -= leftCount[node] + blockSize[node];
+                node = right[node];
+            } else if (index < leftCount[node]) {
+                node = left[node];
+            } else {
+                break;
+            }
+        }
+
+        E element = removeFromBlock(node, index - leftCount[node]);
+        updateLeftCounts(node, -1);
+
+        if (blockSize[node] == 0) {
+            deleteNode(node);
+        }
+
+        size--;
+        modCount++;
+        return element;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, elementArrayLength(allocatedNodes), null);
+        allocatedNodes = 0;
+        freeListHead = NIL;
+        root = NIL;
+        head = NIL;
+        tail = NIL;
+        size = 0;
+        blocks = 0;
+        modCount++;
+    }
+
+    private void allocateArrays(int nodeArrayCapacity) {
+        left      = new int[nodeArrayCapacity];
+        right     = new int[nodeArrayCapacity];
+        parent    = new int[nodeArrayCapacity];
+        prev      = new int[nodeArrayCapacity];
+        next      = new int[nodeArrayCapacity];
+        leftCount = new int[nodeArrayCapacity];
+        blockSize = new int[nodeArrayCapacity];
+        headIndex = new int[nodeArrayCapacity];
+        height    = new int[nodeArrayCapacity];
+        elements  = new Object[elementArrayLength(nodeArrayCapacity)];
+    }
+
+    private void growArrays() {
+        int maximumCapacity = maximumNodeArrayCapacity();
+
+        if (left.length >= maximumCapacity) {
+            throw new OutOfMemoryError("Required array size too large");
+        }
+
+        int nodeArrayCapacity =
+                (int) Math.min(left.length + (left.length >> 1) + 1L,
+                               maximumCapacity);
+        left      = Arrays.copyOf(left,      nodeArrayCapacity);
+        right     = Arrays.copyOf(right,     nodeArrayCapacity);
+        parent    = Arrays.copyOf(parent,    nodeArrayCapacity);
+        prev      = Arrays.copyOf(prev,      nodeArrayCapacity);
+        next      = Arrays.copyOf(next,      nodeArrayCapacity);
+        leftCount = Arrays.copyOf(leftCount, nodeArrayCapacity);
+        blockSize = Arrays.copyOf(blockSize, nodeArrayCapacity);
+        headIndex = Arrays.copyOf(headIndex, nodeArrayCapacity);
+        height    = Arrays.copyOf(height,    nodeArrayCapacity);
+        elements  = Arrays.copyOf(elements,
+                                  elementArrayLength(nodeArrayCapacity));
+    }
+
+    /**
+     * Returns the largest number of node slots whose blocks still fit in a
+     * single element array.
+     *
+     * @return the maximum node array capacity.
+     */
+    private int maximumNodeArrayCapacity() {
+        return Integer.MAX_VALUE / blockNodeCapacity;
+    }
+
+    private int elementArrayLength(int nodeArrayCapacity) {
+        return Math.multiplyExact(nodeArrayCapacity, blockNodeCapacity);
+    }
+
+    /**
+     * Returns a fresh node ID, taking it from the free list if possible.
+     *
+     * @return a fresh node ID.
+     */
+    private int allocateNode() {
+        int node;
+
+        if (freeListHead != NIL) {
+            node = freeListHead;
+            freeListHead = prev[node];
+        } else {
+            if (allocatedNodes == left.length) {
+                growArrays();
+            }
+
+            node = allocatedNodes++;
+        }
+
+        left[node]      = NIL;
+        right[node]     = NIL;
+        parent[node]    = NIL;
+        prev[node]      = NIL;
+        next[node]      = NIL;
+        leftCount[node] = 0;
+        blockSize[node] = 0;
+        headIndex[node] = 0;
+        height[node]    = 0;
+        return node;
+    }
+
+    /**
+     * Pushes the input node ID to the free list.
+     *
+     * @param node the ID of the node to free.
+     */
+    private void freeNode(int node) {
+        // The block is empty at this point, so the arena holds no references
+        // in it.
+        prev[node] = freeListHead;
+        freeListHead = node;
+    }
+
+    private boolean isFull(int node) {
+        return blockSize[node] == blockNodeCapacity;
+    }
+
+    private void append(int node, E element) {
+        elements[physicalIndex(node, blockSize[node]++)] = element;
+    }
+
+    private void prepend(int node, E element) {
+        headIndex[node] = headIndex[node] == 0 ?
+                          blockNodeCapacity - 1 :
+                          headIndex[node] - 1;
+
+        elements[node * blockNodeCapacity + headIndex[node]] = element;
+        blockSize[node]++;
+    }
+
+    /**
+     * Removes the element at the given logical index of the block, shifting
+     * the shorter side of the block.
+     *
+     * @param node         the ID of the block node.
+     * @param logicalIndex the logical index within the block.
+     * @return the removed element.
+     */
+    private E removeFromBlock(int node, int logicalIndex) {
+        E element = (E) elements[physicalIndex(node, logicalIndex)];
+
+        if (logicalIndex < blockSize[node] / 2) {
+            for (int i = logicalIndex; i > 0; i--) {
+                elements[physicalIndex(node, i)] =
+                        elements[physicalIndex(node, i - 1)];
+            }
+
+            elements[physicalIndex(node, 0)] = null;
+            headIndex[node] = (headIndex[node] + 1) % blockNodeCapacity;
+        } else {
+            for (int i = logicalIndex; i < blockSize[node] - 1; i++) {
+                elements[physicalIndex(node, i)] =
+                        elements[physicalIndex(node, i + 1)];
+            }
+
+            elements[physicalIndex(node, blockSize[node] - 1)] = null;
+        }
+
+        blockSize[node]--;
+        return element;
+    }
+
+    /**
+     * Deletes the input empty block node from the block list and the tree.
+     * A node with two children is replaced by its in-order successor, which
+     * is the leftmost node of its right subtree.
+     *
+     * @param node the ID of the empty node to delete.
+     */
+    private void deleteNode(int node) {
+        if (prev[node] == NIL) {
+            head = next[node];
+        } else {
+            next[prev[node]] = next[node];
+        }
+
+        if (next[node] == NIL) {
+            tail = prev[node];
+        } else {
+            prev[next[node]] = prev[node];
+        }
+
+        int rebalanceStart;
+
+        if (left[node] == NIL || right[node] == NIL) {
+            int child = left[node] != NIL ? left[node] : right[node];
+            rebalanceStart = parent[node];
+            replaceChild(rebalanceStart, node, child);
+
+            if (child != NIL) {
+                parent[child] = rebalanceStart;
+            }
+        } else {
+            int successor = right[node];
+
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+
+            if (parent[successor] == node) {
+                rebalanceStart = successor;
+            } else {
+                rebalanceStart = parent[successor];
+
+                // The successor leaves the left subtrees of the nodes between
+                // it and the deleted node.
+                for (int ancestor = rebalanceStart;
+                        ancestor != node;
+                        ancestor = parent[ancestor]) {
+                    leftCount[ancestor] -= blockSize[successor];
+                }
+
+                left[rebalanceStart] = right[successor];
+
+                if (right[successor] != NIL) {
+                    parent[right[successor]] = rebalanceStart;
+                }
+
+                right[successor] = right[node];
+                parent[right[node]] = successor;
+            }
+
+            left[successor] = left[node];
+            parent[left[node]] = successor;
+            leftCount[successor] = leftCount[node];
+            height[successor] = height[node];
+            parent[successor] = parent[node];
+            replaceChild(parent[node], node, successor);
+        }
+
+        freeNode(node);
+        blocks--;
+        fixAfterDeletion(rebalanceStart);
+    }
+
+    /**
+     * Converts the logical index within a block to the index of the element
+     * arena.
+     *
+     * @param node         the ID of the block node.
+     * @param logicalIndex the logical index within the block.
+     * @return the arena index.
+     */
+    private int physicalIndex(int node, int logicalIndex) {
+        return node * blockNodeCapacity +
+               (headIndex[node] + logicalIndex) % blockNodeCapacity;
+    }
+
+    private void updateLeftCounts(int startNode, int delta) {
+        int node = startNode;
+        int nodeParent = parent[node];
+
+        while (nodeParent != NIL) {
+            if (left[nodeParent] == node) {
+                leftCount[nodeParent] += delta;
+            }
+
+            node = nodeParent;
+            nodeParent = parent[nodeParent];
+        }
+    }
+
+    private void replaceChild(int nodeParent, int oldChild, int newChild) {
+        if (nodeParent == NIL) {
+            root = newChild;
+        } else if (left[nodeParent] == oldChild) {
+            left[nodeParent] = newChild;
+        } else {
+            right[nodeParent] = newChild;
+        }
+    }
+
+    private int height(int node) {
+        return node != NIL ? height[node] : -1;
+    }
+
+    private void updateHeight(int node) {
+        height[node] = Math.max(height(left[node]), height(right[node])) + 1;
+    }
+
+    private int leftRotate(int node1) {
+        int node2 = right[node1];
+        parent[node2] = parent[node1];
+        parent[node1] = node2;
+        right[node1] = left[node2];
+        left[node2] = node1;
+
+        if (right[node1] != NIL) {
+            parent[right[node1]] = node1;
+        }
+
+        updateHeight(node1);
+        updateHeight(node2);
+        leftCount[node2] += leftCount[node1] + blockSize[node1];
+        return node2;
+    }
+
+    private int rightRotate(int node1) {
+        int node2 = left[node1];
+        parent[node2] = parent[node1];
+        parent[node1] = node2;
+        left[node1] = right[node2];
+        right[node2] = node1;
+
+        if (left[node1] != NIL) {
+            parent[left[node1]] = node1;
+        }
+
+        updateHeight(node1);
+        updateHeight(node2);
+        leftCount[node1] -= leftCount[node2] + blockSize[node2];
+        return node2;
+    }
+
+    private int rightLeftRotate(int node1) {
+        right[node1] = rightRotate(right[node1]);
+        return leftRotate(node1);
+    }
+
+    private int leftRightRotate(int node1) {
+        left[node1] = leftRotate(left[node1]);
+        return rightRotate(node1);
+    }
+
+    /**
+     * Rebalances the subtree rooted at {@code node} if needed, and returns the
+     * root of the resulting subtree.
+     *
+     * @param node the root of the subtree to rebalance.
+     * @return the new root of the subtree.
+     */
+    private int rebalance(int node) {
+        int nodeParent = parent[node];
+        int subTreeRoot;
+
+        if (height(left[node]) == height(right[node]) + 2) {
+            int leftChild = left[node];
+
+            if (height(left[leftChild]) >= height(right[leftChild])) {
+                subTreeRoot = rightRotate(node);
+            } else {
+                subTreeRoot = leftRightRotate(node);
+            }
+        } else if (height(right[node]) == height(left[node]) + 2) {
+            int rightChild = right[node];
+
+            if (height(right[rightChild]) >= height(left[rightChild])) {
+                subTreeRoot = leftRotate(node);
+            } else {
+                subTreeRoot = rightLeftRotate(node);
+            }
+        } else {
+            updateHeight(node);
+            return node;
+        }
+
+        replaceChild(nodeParent, node, subTreeRoot);
+        return subTreeRoot;
+    }
+
+    private void fixAfterInsertion(int node) {
+        int nodeParent = parent[node];
+
+        while (nodeParent != NIL) {
+            int oldHeight = height[nodeParent];
+            int subTreeRoot = rebalance(nodeParent);
+
+            if (subTreeRoot != nodeParent
+                    || height[subTreeRoot] == oldHeight) {
+                // Either a rotation restored the height of the subtree, or
+                // the height did not change at all.
+                return;
+            }
+
+            nodeParent = parent[nodeParent];
+        }
+    }
+
+    private void fixAfterDeletion(int node) {
+        while (node != NIL) {
+            node = parent[rebalance(node)];
+        }
+    }
+
+    private void accessRangeCheck(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * This inner class implements the descending iterator walking the block
+     * nodes backwards.
+     */
+    private final class DescendingIterator implements Iterator<E> {
+
+        private int node = tail;
+        private int indexInBlock = tail == NIL ? 0 : blockSize[tail] - 1;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return node != NIL;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            E element = (E) elements[physicalIndex(node, indexInBlock)];
+
+            if (--indexInBlock < 0) {
+                node = prev[node];
+                indexInBlock = node == NIL ? 0 : blockSize[node] - 1;
+            }
+
+            return element;
+        }
+    }
+}
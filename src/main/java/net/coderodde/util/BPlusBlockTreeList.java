@@ -0,0 +1,856 @@
+package net.coderodde.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This list implements an alternative index over the same ring buffer blocks
+ * as {@link BlockTreeList}: instead of a binary AVL-tree, the blocks are the
+ * leaves of a B+-tree whose internal nodes have a wide fanout and store prefix
+ * element counts of their children. With fanout {@code f} and block capacity
+ * {@code c}, a list of {@code n} elements has height
+ * {@code ceil(log_f(n / c))}, which is typically 3 to 5 levels even for very
+ * large lists, so that {@code get} and {@code set} touch only a handful of
+ * nodes. The leaf blocks are linked through {@code prev}/{@code next} so that
+ * iteration does not touch the internal nodes at all. The index is not
+ * serialized: only the elements are written, and the index is rebuilt by
+ * appending them on deserialization.
+ * <p>
+ * Like {@link BlockTreeList}, this list is both a {@link java.util.List} and
+ * a {@link Deque}. Removals do not rebalance the index: a leaf block or an
+ * internal node is unlinked only once it becomes empty, and the root is
+ * collapsed while it has a single child, so that the height never grows
+ * because of removals.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6
+ */
+public class BPlusBlockTreeList<E> extends AbstractList<E>
+                                   implements Deque<E>, Serializable {
+
+    /**
+     * The minimum allowed (and possible) capacity of each block node.
+     */
+    private static final int MINIMUM_BLOCK_NODE_CAPACITY = 1;
+
+    /**
+     * The default capacity of each node block.
+     */
+    private static final int DEFAULT_BLOCK_NODE_CAPACITY = 25;
+
+    /**
+     * The minimum fanout of the internal nodes.
+     */
+    private static final int MINIMUM_FANOUT = 32;
+
+    /**
+     * The maximum fanout of the internal nodes.
+     */
+    private static final int MAXIMUM_FANOUT = 128;
+
+    /**
+     * The default fanout of the internal nodes.
+     */
+    private static final int DEFAULT_FANOUT = 64;
+
+    /**
+     * This static inner class implements a leaf block.
+     *
+     * @param <E> the element type.
+     */
+    private static final class LeafBlock<E> {
+
+        /**
+         * The actual element array of this block.
+         */
+        E[] array;
+
+        /**
+         * Number of elements currently in the block.
+         */
+        int size;
+
+        /**
+         * The physical index of the element that is logically first (has
+         * logical index 0).
+         */
+        int headIndex;
+
+        /**
+         * The previous leaf block of this block.
+         */
+        LeafBlock<E> prev;
+
+        /**
+         * The next leaf block of this block.
+         */
+        LeafBlock<E> next;
+
+        LeafBlock(int capacity) {
+            this.array = (E[]) new Object[capacity];
+        }
+
+        boolean isFull() {
+            return size == array.length;
+        }
+
+        void append(E element) {
+            array[convertLogicalIndexToPhysicalIndex(size++)] = element;
+        }
+
+        void prepend(E element) {
+            array[headIndex = (headIndex == 0 ?
+                  array.length - 1:
+                  headIndex - 1)] = element;
+            size++;
+        }
+
+        int convertLogicalIndexToPhysicalIndex(int logicalIndex) {
+            return (headIndex + logicalIndex) % array.length;
+        }
+
+        E get(int logicalIndex) {
+            return array[convertLogicalIndexToPhysicalIndex(logicalIndex)];
+        }
+
+        E set(int logicalIndex, E element) {
+            int index = convertLogicalIndexToPhysicalIndex(logicalIndex);
+            E oldElement = array[index];
+            array[index] = element;
+            return oldElement;
+        }
+
+        /**
+         * Removes the element at the given logical index, shifting the
+         * shorter side of the block.
+         *
+         * @param logicalIndex the logical index of the element.
+         * @return the removed element.
+         */
+        E remove(int logicalIndex) {
+            E element = get(logicalIndex);
+
+            if (logicalIndex < size / 2) {
+                for (int i = logicalIndex; i > 0; i--) {
+                    set(i, get(i - 1));
+                }
+
+                array[headIndex] = null;
+                headIndex = (headIndex + 1) % array.length;
+            } else {
+                for (int i = logicalIndex; i < size - 1; i++) {
+                    set(i, get(i + 1));
+                }
+
+                array[convertLogicalIndexToPhysicalIndex(size - 1)] = null;
+            }
+
+            size--;
+            return element;
+        }
+    }
+
+    /**
+     * This static inner class implements an internal node. The children are
+     * either all internal nodes or all leaf blocks, depending on the level.
+     */
+    private static final class IndexNode {
+
+        /**
+         * The children of this node.
+         */
+        final Object[] children;
+
+        /**
+         * {@code prefixCounts[i]} is the total number of elements in the
+         * children {@code children[0], ..., children[i]}.
+         */
+        final int[] prefixCounts;
+
+        /**
+         * The number of children in this node.
+         */
+        int childCount;
+
+        IndexNode(int fanout) {
+            this.children = new Object[fanout];
+            this.prefixCounts = new int[fanout];
+        }
+
+        boolean isFull() {
+            return childCount == children.length;
+        }
+
+        /**
+         * Returns the index of the child that contains the element with the
+         * given index, which must be less than the total count of this node.
+         *
+         * @param index the index of the element within this subtree.
+         * @return the index of the child.
+         */
+        int findChild(int index) {
+            int low = 0;
+            int high = childCount - 1;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+
+                if (prefixCounts[middle] > index) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+
+            return low;
+        }
+
+        int countBefore(int childIndex) {
+            return childIndex == 0 ? 0 : prefixCounts[childIndex - 1];
+        }
+
+        void appendChild(Object child, int count) {
+            prefixCounts[childCount] = countBefore(childCount) + count;
+            children[childCount++] = child;
+        }
+
+        void prependChild(Object child, int count) {
+            System.arraycopy(children, 0, children, 1, childCount);
+            System.arraycopy(prefixCounts, 0, prefixCounts, 1, childCount);
+            children[0] = child;
+            prefixCounts[0] = 0;
+            childCount++;
+            addToAll(count);
+        }
+
+        void addToAll(int delta) {
+            addFrom(0, delta);
+        }
+
+        void addFrom(int childIndex, int delta) {
+            for (int i = childIndex; i < childCount; i++) {
+                prefixCounts[i] += delta;
+            }
+        }
+
+        /**
+         * Removes the child with the given index, which must hold no
+         * elements.
+         *
+         * @param childIndex the index of the child to remove.
+         */
+        void removeChild(int childIndex) {
+            int moved = childCount - childIndex - 1;
+            System.arraycopy(children, childIndex + 1,
+                             children, childIndex,
+                             moved);
+            System.arraycopy(prefixCounts, childIndex + 1,
+                             prefixCounts, childIndex,
+                             moved);
+            children[--childCount] = null;
+        }
+    }
+
+    /**
+     * The root node. Either an {@link IndexNode} or, if {@code height} is
+     * zero, a {@link LeafBlock}.
+     */
+    private transient Object root;
+
+    /**
+     * The very first leaf block.
+     */
+    private transient LeafBlock<E> head;
+
+    /**
+     * The very last leaf block.
+     */
+    private transient LeafBlock<E> tail;
+
+    /**
+     * The number of internal node levels above the leaf blocks.
+     */
+    private transient int height;
+
+    /**
+     * The number of elements in this list.
+     */
+    private transient int size;
+
+    /**
+     * The capacity of all the leaf blocks.
+     */
+    private final int blockNodeCapacity;
+
+    /**
+     * The maximum number of children of each internal node.
+     */
+    private final int fanout;
+
+    /**
+     * Constructs an empty list with default block capacity and fanout.
+     */
+    public BPlusBlockTreeList() {
+        this(DEFAULT_BLOCK_NODE_CAPACITY, DEFAULT_FANOUT);
+    }
+
+    /**
+     * Constructs an empty list whose leaf blocks have capacity
+     * {@code requestedBlockNodeCapacity}.
+     *
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     */
+    public BPlusBlockTreeList(int requestedBlockNodeCapacity) {
+        this(requestedBlockNodeCapacity, DEFAULT_FANOUT);
+    }
+
+    /**
+     * Constructs an empty list with given block capacity and internal node
+     * fanout. The fanout is clamped to the range {@code [32, 128]}.
+     *
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     * @param requestedFanout            the requested internal node fanout.
+     */
+    public BPlusBlockTreeList(int requestedBlockNodeCapacity,
+                              int requestedFanout) {
+        this.blockNodeCapacity = Math.max(requestedBlockNodeCapacity,
+                                          MINIMUM_BLOCK_NODE_CAPACITY);
+
+        this.fanout = Math.min(MAXIMUM_FANOUT,
+                               Math.max(MINIMUM_FANOUT, requestedFanout));
+    }
+
+    @Override
+    public void addFirst(E e) {
+        if (root == null) {
+            createRoot(e);
+        } else if (head.isFull()) {
+            LeafBlock<E> newBlock = new LeafBlock<>(blockNodeCapacity);
+            newBlock.append(e);
+            newBlock.next = head;
+            head.prev = newBlock;
+            head = newBlock;
+            attachFirst(newBlock);
+        } else {
+            head.prepend(e);
+            Object node = root;
+
+            for (int level = 0; level < height; level++) {
+                IndexNode indexNode = (IndexNode) node;
+                indexNode.addToAll(1);
+                node = indexNode.children[0];
+            }
+        }
+
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public void addLast(E e) {
+        if (root == null) {
+            createRoot(e);
+        } else if (tail.isFull()) {
+            LeafBlock<E> newBlock = new LeafBlock<>(blockNodeCapacity);
+            newBlock.append(e);
+            newBlock.prev = tail;
+            tail.next = newBlock;
+            tail = newBlock;
+            attachLast(newBlock);
+        } else {
+            tail.append(e);
+            Object node = root;
+
+            for (int level = 0; level < height; level++) {
+                IndexNode indexNode = (IndexNode) node;
+                indexNode.prefixCounts[indexNode.childCount - 1]++;
+                node = indexNode.children[indexNode.childCount - 1];
+            }
+        }
+
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public E removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("Removing from an empty list.");
+        }
+
+        return remove(0);
+    }
+
+    @Override
+    public E removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Removing from an empty list.");
+        }
+
+        return remove(size - 1);
+    }
+
+    @Override
+    public E pollFirst() {
+        return size == 0 ? null : remove(0);
+    }
+
+    @Override
+    public E pollLast() {
+        return size == 0 ? null : remove(size - 1);
+    }
+
+    @Override
+    public E getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("Reading from an empty list.");
+        }
+
+        return head.get(0);
+    }
+
+    @Override
+    public E getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Reading from an empty list.");
+        }
+
+        return tail.get(tail.size - 1);
+    }
+
+    @Override
+    public E peekFirst() {
+        return size == 0 ? null : head.get(0);
+    }
+
+    @Override
+    public E peekLast() {
+        return size == 0 ? null : tail.get(tail.size - 1);
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        int index = 0;
+
+        for (LeafBlock<E> block = head; block != null; block = block.next) {
+            for (int i = 0; i < block.size; i++, index++) {
+                if (Objects.equals(o, block.get(i))) {
+                    remove(index);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        int index = size - 1;
+
+        for (LeafBlock<E> block = tail; block != null; block = block.prev) {
+            for (int i = block.size - 1; i >= 0; i--, index--) {
+                if (Objects.equals(o, block.get(i))) {
+                    remove(index);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        accessRangeCheck(index);
+        Object node = root;
+
+        for (int level = 0; level < height; level++) {
+            IndexNode indexNode = (IndexNode) node;
+            int childIndex = indexNode.findChild(index);
+            index -= indexNode.countBefore(childIndex);
+            node = indexNode.children[childIndex];
+        }
+
+        return ((LeafBlock<E>) node).get(index);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        accessRangeCheck(index);
+        Object node = root;
+
+        for (int level = 0; level < height; level++) {
+            IndexNode indexNode = (IndexNode) node;
+            int childIndex = indexNode.findChild(index);
+            index -= indexNode.countBefore(childIndex);
+            node = indexNode.children[childIndex];
+        }
+
+        return ((LeafBlock<E>) node).set(index, element);
+    }
+
+    /**
+     * Removes the element at the given index. The counts on the path from the
+     * root are updated, a leaf block that becomes empty is unlinked together
+     * with the internal nodes left without children, and the root is
+     * collapsed while it has a single child.
+     *
+     * @param index the index of the element to remove.
+     * @return the removed element.
+     */
+    @Override
+    public E remove(int index) {
+        accessRangeCheck(index);
+        IndexNode[] path = new IndexNode[height];
+        int[] childIndices = new int[height];
+        Object node = root;
+
+        for (int level = 0; level < height; level++) {
+            path[level] = (IndexNode) node;
+            childIndices[level] = path[level].findChild(index);
+            index -= path[level].countBefore(childIndices[level]);
+            node = path[level].children[childIndices[level]];
+        }
+
+        LeafBlock<E> block = (LeafBlock<E>) node;
+        E element = block.remove(index);
+
+        for (int level = 0; level < height; level++) {
+            path[level].addFrom(childIndices[level], -1);
+        }
+
+        if (block.size == 0) {
+            unlinkBlock(block);
+            int level = height - 1;
+
+            while (level >= 0) {
+                path[level].removeChild(childIndices[level]);
+
+                if (path[level].childCount > 0) {
+                    break;
+                }
+
+                level--;
+            }
+
+            if (level < 0) {
+                root = null;
+                height = 0;
+            }
+
+            while (height > 0 && ((IndexNode) root).childCount == 1) {
+                root = ((IndexNode) root).children[0];
+                height--;
+            }
+        }
+
+        size--;
+        modCount++;
+        return element;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        head = null;
+        tail = null;
+        height = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new LeafIterator(false);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new LeafIterator(true);
+    }
+
+    /**
+     * Returns the number of internal node levels above the leaf blocks.
+     *
+     * @return the height of the index.
+     */
+    public int getIndexHeight() {
+        return height;
+    }
+
+    private void createRoot(E e) {
+        LeafBlock<E> block = new LeafBlock<>(blockNodeCapacity);
+        block.append(e);
+        root = block;
+        head = block;
+        tail = block;
+        height = 0;
+    }
+
+    /**
+     * Attaches a new leaf block containing exactly one element after the
+     * current last leaf. Full internal nodes on the right spine are not split
+     * but get a new, initially single-child, right sibling, so that appending
+     * leaves all the internal nodes but the right spine completely full.
+     *
+     * @param block the block to attach.
+     */
+    private void attachLast(LeafBlock<E> block) {
+        IndexNode[] path = new IndexNode[height];
+        Object node = root;
+
+        for (int level = 0; level < height; level++) {
+            path[level] = (IndexNode) node;
+            node = path[level].children[path[level].childCount - 1];
+        }
+
+        Object carry = block;
+
+        for (int level = height - 1; level >= 0; level--) {
+            IndexNode indexNode = path[level];
+
+            if (carry == null) {
+                indexNode.prefixCounts[indexNode.childCount - 1]++;
+            } else if (indexNode.isFull()) {
+                IndexNode sibling = new IndexNode(fanout);
+                sibling.appendChild(carry, 1);
+                carry = sibling;
+            } else {
+                indexNode.appendChild(carry, 1);
+                carry = null;
+            }
+        }
+
+        if (carry != null) {
+            IndexNode newRoot = new IndexNode(fanout);
+            newRoot.appendChild(root, size);
+            newRoot.appendChild(carry, 1);
+            root = newRoot;
+            height++;
+        }
+    }
+
+    /**
+     * Attaches a new leaf block containing exactly one element before the
+     * current first leaf. This is the mirror image of
+     * {@link #attachLast(LeafBlock)}.
+     *
+     * @param block the block to attach.
+     */
+    private void attachFirst(LeafBlock<E> block) {
+        IndexNode[] path = new IndexNode[height];
+        Object node = root;
+
+        for (int level = 0; level < height; level++) {
+            path[level] = (IndexNode) node;
+            node = path[level].children[0];
+        }
+
+        Object carry = block;
+
+        for (int level = height - 1; level >= 0; level--) {
+            IndexNode indexNode = path[level];
+
+            if (carry == null) {
+                indexNode.addToAll(1);
+            } else if (indexNode.isFull()) {
+                IndexNode sibling = new IndexNode(fanout);
+                sibling.appendChild(carry, 1);
+                carry = sibling;
+            } else {
+                indexNode.prependChild(carry, 1);
+                carry = null;
+            }
+        }
+
+        if (carry != null) {
+            IndexNode newRoot = new IndexNode(fanout);
+            newRoot.appendChild(carry, 1);
+            newRoot.appendChild(root, size);
+            root = newRoot;
+            height++;
+        }
+    }
+
+    private void unlinkBlock(LeafBlock<E> block) {
+        if (block.prev == null) {
+            head = block.next;
+        } else {
+            block.prev.next = block.next;
+        }
+
+        if (block.next == null) {
+            tail = block.prev;
+        } else {
+            block.next.prev = block.prev;
+        }
+    }
+
+    private void accessRangeCheck(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Writes the block capacity, the fanout, the size and then the elements
+     * in order.
+     *
+     * @param out the output stream.
+     * @throws IOException if writing fails.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+
+        for (LeafBlock<E> block = head; block != null; block = block.next) {
+            for (int i = 0; i < block.size; i++) {
+                out.writeObject(block.get(i));
+            }
+        }
+    }
+
+    /**
+     * Reads the state written by {@link #writeObject(ObjectOutputStream)}
+     * and rebuilds the index by appending the elements.
+     *
+     * @param in the input stream.
+     * @throws IOException            if reading fails.
+     * @throws ClassNotFoundException if an element class is not found.
+     */
+    private void readObject(ObjectInputStream in)
+    throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int elementCount = in.readInt();
+
+        if (elementCount < 0) {
+            throw new IOException("Negative size: " + elementCount);
+        }
+
+        for (int i = 0; i < elementCount; i++) {
+            addLast((E) in.readObject());
+        }
+    }
+
+    /**
+     * This inner class implements the ascending and the descending iterators
+     * walking the linked leaf blocks.
+     */
+    private final class LeafIterator implements Iterator<E> {
+
+        private final boolean descending;
+        private LeafBlock<E> block;
+        private int indexInBlock;
+        private final int expectedModCount = modCount;
+
+        LeafIterator(boolean descending) {
+            this.descending = descending;
+            this.block = descending ? tail : head;
+            this.indexInBlock = descending && tail != null ? tail.size - 1 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return block != null;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            E element = block.get(indexInBlock);
+
+            if (descending) {
+                if (--indexInBlock < 0) {
+                    block = block.prev;
+                    indexInBlock = block == null ? 0 : block.size - 1;
+                }
+            } else if (++indexInBlock == block.size) {
+                block = block.next;
+                indexInBlock = 0;
+            }
+
+            return element;
+        }
+    }
+}
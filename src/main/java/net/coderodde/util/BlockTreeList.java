@@ -1,19 +1,46 @@
 package net.coderodde.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 //! (Apr 1, 2019) Experiment with block list chain.
@@ -55,6 +82,40 @@ public class BlockTreeList<E> implements List<E>,
      */
     private static final float DEFAULT_REQUESTED_LOAD_FACTOR = 0.3f;
     
+    /**
+     * The minimum number of resident blocks in the tiered mode.
+     */
+    private static final int MINIMUM_RESIDENT_BLOCKS = 2;
+    
+    /**
+     * The number of completed blocks {@link #appendAll(Iterable)} collects 
+     * before attaching them to the tree.
+     */
+    private static final int APPEND_BATCH_BLOCKS = 1024;
+    
+    /**
+     * The default number of bytes the bulk loader reads into one chunk.
+     */
+    private static final int LOAD_CHUNK_BYTES = 1 << 22;
+    
+    /**
+     * The record delimiter of the bulk loader.
+     */
+    private static final byte LOAD_RECORD_DELIMITER = '\n';
+    
+    /**
+     * The spill file slots are allocated in multiples of this many bytes, so
+     * that a block whose serialized form grows a little keeps its slot.
+     */
+    private static final int SPILL_SLOT_ALIGNMENT = 64;
+    
+    /**
+     * The odd base of the 64-bit digests used by {@link #diff(BlockTreeList)}.
+     * It is fixed, so that the digests and the diffs of two processes agree
+     * and a diff can be reproduced.
+     */
+    private static final long DIGEST_BASE = 0xC6A4A7935BD1E995L;
+    
     /**
      * This static inner class implements a tree node.
      * 
@@ -114,6 +175,103 @@ public class BlockTreeList<E> implements List<E>,
          */
         int leftCount;
         
+        /**
+         * Whether the logical order of this block runs backwards in the ring
+         * buffer, starting from the physical index 
+         * {@code headIndex + size - 1}.
+         */
+        boolean reversed;
+        
+        /**
+         * Whether both the child subtrees of this node still have to be 
+         * reversed. This node itself is already reversed when the flag is 
+         * set.
+         */
+        boolean reversePending;
+        
+        /**
+         * The transformation still to be applied to the elements of this 
+         * block, or {@code null}.
+         */
+        UnaryOperator<E> blockTransform;
+        
+        /**
+         * The transformation still to be applied to both the child subtrees 
+         * of this node, or {@code null}.
+         */
+        UnaryOperator<E> subtreeTransform;
+        
+        /**
+         * Whether the hash fields below describe the current contents of the
+         * subtree rooted at this node. If a node is invalid, so are all its 
+         * ancestors.
+         */
+        boolean hashValid;
+        
+        /**
+         * The polynomial hash of the elements of this block.
+         */
+        int blockHash;
+        
+        /**
+         * The polynomial hash of the elements of this block in reverse order.
+         */
+        int reverseBlockHash;
+        
+        /**
+         * 31 to the power of the number of elements in this block.
+         */
+        int blockPower;
+        
+        /**
+         * The polynomial hash of the elements of this subtree.
+         */
+        int subtreeHash;
+        
+        /**
+         * The polynomial hash of the elements of this subtree in reverse 
+         * order.
+         */
+        int reverseSubtreeHash;
+        
+        /**
+         * 31 to the power of the number of elements in this subtree.
+         */
+        int subtreePower;
+        
+        /**
+         * The 64-bit digest of the elements of this block; see 
+         * {@link BlockTreeList#updateHashes(TreeListBlockNode)}.
+         */
+        long blockDigest;
+        
+        /**
+         * The 64-bit digest of the elements of this block in reverse order.
+         */
+        long reverseBlockDigest;
+        
+        /**
+         * The digest base to the power of the number of elements in this 
+         * block.
+         */
+        long blockDigestPower;
+        
+        /**
+         * The 64-bit digest of the elements of this subtree.
+         */
+        long subtreeDigest;
+        
+        /**
+         * The 64-bit digest of the elements of this subtree in reverse order.
+         */
+        long reverseSubtreeDigest;
+        
+        /**
+         * The digest base to the power of the number of elements in this 
+         * subtree.
+         */
+        long subtreeDigestPower;
+        
         TreeListBlockNode(int capacity) {
             this.array = (E[]) new Object[capacity];
         }
@@ -133,7 +291,11 @@ public class BlockTreeList<E> implements List<E>,
          * @param element the element to append.
          */
         void append(E element) {
-            array[convertLogicalIndexToPhysicalIndex(size++)] = element;
+            if (reversed) {
+                physicalPrepend(element);
+            } else {
+                physicalAppend(element);
+            }
         }
         
         /**
@@ -142,6 +304,18 @@ public class BlockTreeList<E> implements List<E>,
          * @param element the element to prepend.
          */
         void prepend(E element) {
+            if (reversed) {
+                physicalAppend(element);
+            } else {
+                physicalPrepend(element);
+            }
+        }
+        
+        private void physicalAppend(E element) {
+            array[(headIndex + size++) % array.length] = element;
+        }
+        
+        private void physicalPrepend(E element) {
             array[headIndex = (headIndex == 0 ?
                   array.length - 1:
                   headIndex - 1)] = element;
@@ -155,6 +329,10 @@ public class BlockTreeList<E> implements List<E>,
          * @return the physical index.
          */
         int convertLogicalIndexToPhysicalIndex(int logicalIndex) {
+            if (reversed) {
+                return (headIndex + size - 1 - logicalIndex) % array.length;
+            }
+            
             return (headIndex + logicalIndex) % array.length;
         }
         
@@ -177,30 +355,714 @@ public class BlockTreeList<E> implements List<E>,
             return oldElement;
         }
     }
-    
-    /**
-     * The root node of this tree.
-     */
-    private transient TreeListBlockNode<E> root;
-    
+
     /**
-     * The very first tree list block node.
+     * This static inner class implements the spill store of the tiered mode.
+     * It keeps a bounded, access ordered set of resident blocks in memory and
+     * writes the payloads of the least recently used blocks to a spill file.
+     * A spilled block node keeps all its tree metadata, but its
+     * {@code array} is {@code null} until the block is faulted back in. The
+     * slots of the discarded, moved and shrunk blocks go to a free list and
+     * are reused best fit first, and the file is compacted when the free 
+     * space grows too large.
+     *
+     * @param <E> the element type.
      */
-    private transient TreeListBlockNode<E> head;
-    
+    private static final class BlockSpill<E> {
+
+        /**
+         * The path of the spill file.
+         */
+        private final Path path;
+
+        /**
+         * The spill file.
+         */
+        private final RandomAccessFile file;
+
+        /**
+         * The capacity of the arrays of the loaded blocks.
+         */
+        private final int blockNodeCapacity;
+
+        /**
+         * The maximum number of blocks kept in memory.
+         */
+        private final int maximumResidentBlocks;
+
+        /**
+         * Maps each resident block node to its dirty flag, in the least
+         * recently used first order.
+         */
+        private final LinkedHashMap<TreeListBlockNode<E>, Boolean>
+                residentBlocks = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Maps each block node that was ever written to the spill file to its
+         * slot {@code {offset, capacity, length}} in the file.
+         */
+        private final Map<TreeListBlockNode<E>, long[]> slots =
+                new IdentityHashMap<>();
+
+        /**
+         * Maps the offset of each free extent of the spill file to its
+         * length. Adjacent free extents are always merged, and no free extent
+         * reaches the end of the file.
+         */
+        private final TreeMap<Long, Long> freeExtents = new TreeMap<>();
+
+        /**
+         * The free extents as {@code {length, offset}} pairs, ordered by
+         * length and then by offset, for the best fit search.
+         */
+        private final TreeSet<long[]> freeExtentsBySize =
+                new TreeSet<>(Comparator.<long[]>comparingLong(e -> e[0])
+                                        .thenComparingLong(e -> e[1]));
+
+        /**
+         * The number of bytes allocated in the spill file.
+         */
+        private long fileLength;
+
+        /**
+         * The total length of the free extents.
+         */
+        private long freeBytes;
+
+        /**
+         * The number of block accesses served from memory.
+         */
+        private long hits;
+
+        /**
+         * The number of block accesses that had to read the spill file.
+         */
+        private long misses;
+
+        BlockSpill(Path path,
+                   int blockNodeCapacity,
+                   int maximumResidentBlocks) {
+            this.path = path;
+            this.blockNodeCapacity = blockNodeCapacity;
+            this.maximumResidentBlocks = maximumResidentBlocks;
+
+            try {
+                this.file = new RandomAccessFile(path.toFile(), "rw");
+                this.file.setLength(0L);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * Makes the input block node resident and most recently used. A node
+         * that is not resident but still has its array was created after the
+         * last eviction and has no copy in the spill file, so it is dirty.
+         *
+         * @param node       the block node to load.
+         * @param forWriting whether the caller is going to modify the block.
+         */
+        void load(TreeListBlockNode<E> node, boolean forWriting) {
+            Boolean dirty = residentBlocks.get(node);
+
+            if (dirty != null) {
+                hits++;
+
+                if (forWriting && !dirty) {
+                    residentBlocks.put(node, Boolean.TRUE);
+                }
+
+                return;
+            }
+
+            boolean fresh = node.array != null;
+
+            if (!fresh) {
+                misses++;
+                readBlock(node);
+            }
+
+            residentBlocks.put(node, forWriting || fresh);
+            evictBlocks();
+        }
+
+        /**
+         * Forgets the input block node that is being removed from the tree.
+         *
+         * @param node the removed block node.
+         */
+        void discard(TreeListBlockNode<E> node) {
+            residentBlocks.remove(node);
+            long[] slot = slots.remove(node);
+
+            if (slot != null) {
+                releaseExtent(slot[0], slot[1]);
+                compactIfFragmented();
+            }
+        }
+
+        void close() {
+            try {
+                file.close();
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void evictBlocks() {
+            Iterator<Map.Entry<TreeListBlockNode<E>, Boolean>> iterator =
+                    residentBlocks.entrySet().iterator();
+
+            while (residentBlocks.size() > maximumResidentBlocks) {
+                Map.Entry<TreeListBlockNode<E>, Boolean> entry =
+                        iterator.next();
+
+                TreeListBlockNode<E> victim = entry.getKey();
+
+                if (entry.getValue()) {
+                    writeBlock(victim);
+                }
+
+                victim.array = null;
+                iterator.remove();
+            }
+        }
+
+        private void writeBlock(TreeListBlockNode<E> node) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try {
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeInt(node.size);
+
+                    // The ring buffer is written in physical order, so that
+                    // reversing a spilled block needs no rewrite.
+                    for (int i = 0; i < node.size; i++) {
+                        out.writeObject(node.array[(node.headIndex + i) 
+                                                   % node.array.length]);
+                    }
+                }
+
+                byte[] data = bytes.toByteArray();
+                long[] slot = slots.get(node);
+                long capacity = (data.length + SPILL_SLOT_ALIGNMENT - 1)
+                              / SPILL_SLOT_ALIGNMENT
+                              * SPILL_SLOT_ALIGNMENT;
+
+                if (slot == null || slot[1] < data.length) {
+                    if (slot != null) {
+                        // Released first, so that the grown block may reuse 
+                        // the old slot merged with its free neighbours.
+                        releaseExtent(slot[0], slot[1]);
+                    }
+
+                    slot = new long[]{ allocateExtent(capacity), 
+                                       capacity, 
+                                       0L };
+                    slots.put(node, slot);
+                } else if (slot[1] > capacity) {
+                    // The block shrank, so its slot is trimmed.
+                    releaseExtent(slot[0] + capacity, slot[1] - capacity);
+                    slot[1] = capacity;
+                }
+
+                slot[2] = data.length;
+                file.seek(slot[0]);
+                file.write(data);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            compactIfFragmented();
+        }
+
+        /**
+         * Moves all the slots to the beginning of the spill file, in their 
+         * current order, once the free extents take more than a third of the
+         * file. A compaction moves fewer bytes than twice the bytes freed 
+         * since the previous one, so the amortized cost per freed byte is 
+         * constant.
+         */
+        private void compactIfFragmented() {
+            if (freeBytes * 3 <= fileLength) {
+                return;
+            }
+
+            List<long[]> orderedSlots = new ArrayList<>(slots.values());
+            orderedSlots.sort(Comparator.comparingLong(slot -> slot[0]));
+            long offset = 0L;
+
+            try {
+                for (long[] slot : orderedSlots) {
+                    if (slot[0] != offset) {
+                        byte[] data = new byte[(int) slot[2]];
+                        file.seek(slot[0]);
+                        file.readFully(data);
+                        file.seek(offset);
+                        file.write(data);
+                        slot[0] = offset;
+                    }
+
+                    offset += slot[1];
+                }
+
+                fileLength = offset;
+                file.setLength(fileLength);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            freeExtents.clear();
+            freeExtentsBySize.clear();
+            freeBytes = 0L;
+        }
+
+        /**
+         * Returns the offset of a free extent of {@code length} bytes. Takes
+         * the smallest free extent that is long enough and returns its
+         * remainder to the free list, or grows the file if there is none.
+         *
+         * @param length the number of bytes to allocate.
+         * @return the offset of the allocated extent.
+         */
+        private long allocateExtent(long length) {
+            long[] fit = freeExtentsBySize.ceiling(
+                    new long[]{ length, Long.MIN_VALUE });
+
+            if (fit == null) {
+                long offset = fileLength;
+                fileLength += length;
+                return offset;
+            }
+
+            removeFreeExtent(fit[1], fit[0]);
+
+            if (fit[0] > length) {
+                addFreeExtent(fit[1] + length, fit[0] - length);
+            }
+
+            return fit[1];
+        }
+
+        /**
+         * Returns the extent of {@code length} bytes at {@code offset} to the
+         * free list, merging it with the adjacent free extents. An extent 
+         * reaching the end of the file is cut off the file instead.
+         *
+         * @param offset the offset of the extent.
+         * @param length the length of the extent.
+         */
+        private void releaseExtent(long offset, long length) {
+            Map.Entry<Long, Long> previous = freeExtents.floorEntry(offset);
+
+            if (previous != null
+                    && previous.getKey() + previous.getValue() == offset) {
+                removeFreeExtent(previous.getKey(), previous.getValue());
+                offset = previous.getKey();
+                length += previous.getValue();
+            }
+
+            Long nextLength = freeExtents.get(offset + length);
+
+            if (nextLength != null) {
+                removeFreeExtent(offset + length, nextLength);
+                length += nextLength;
+            }
+
+            if (offset + length == fileLength) {
+                fileLength = offset;
+
+                try {
+                    file.setLength(fileLength);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            } else {
+                addFreeExtent(offset, length);
+            }
+        }
+
+        private void addFreeExtent(long offset, long length) {
+            freeExtents.put(offset, length);
+            freeExtentsBySize.add(new long[]{ length, offset });
+            freeBytes += length;
+        }
+
+        private void removeFreeExtent(long offset, long length) {
+            freeExtents.remove(offset);
+            freeExtentsBySize.remove(new long[]{ length, offset });
+            freeBytes -= length;
+        }
+
+        private void readBlock(TreeListBlockNode<E> node) {
+            long[] slot = slots.get(node);
+            byte[] data = new byte[(int) slot[2]];
+            E[] array = (E[]) new Object[blockNodeCapacity];
+
+            try {
+                file.seek(slot[0]);
+                file.readFully(data);
+
+                try (ObjectInputStream in =
+                        new ObjectInputStream(new ByteArrayInputStream(data))) {
+                    int blockSize = in.readInt();
+
+                    for (int i = 0; i < blockSize; i++) {
+                        array[i] = (E) in.readObject();
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } catch (ClassNotFoundException ex) {
+                throw new IllegalStateException(
+                        "Cannot deserialize a spilled block.", ex);
+            }
+
+            node.array = array;
+            node.headIndex = 0;
+        }
+    }
+
     /**
-     * The very last tree list block node.
+     * This inner class implements a cursor pointing to a block node together
+     * with the index of the first element of that block. The batch operations
+     * use it to move between nearby blocks via the {@code next} links instead
+     * of descending from the root for each index.
      */
-    private transient TreeListBlockNode<E> tail;
-    
+    private final class BlockCursor {
+
+        /**
+         * The current block node, or {@code null} before the first seek.
+         */
+        TreeListBlockNode<E> node;
+
+        /**
+         * The index of the first element of {@code node}.
+         */
+        int nodeStart;
+
+        /**
+         * Moves this cursor to the block node containing the element with the
+         * given index. Follows at most {@code height + 1} block links forward
+         * before falling back to a descent from the root.
+         *
+         * @param index the index of the element.
+         */
+        void seek(int index) {
+            if (node != null && index >= nodeStart) {
+                int hops = height(root) + 1;
+
+                while (index >= nodeStart + node.size && hops-- > 0) {
+                    nodeStart += node.size;
+                    node = nextBlock(node);
+                }
+
+                if (index < nodeStart + node.size) {
+                    return;
+                }
+            }
+
+            node = root;
+            nodeStart = 0;
+
+            while (true) {
+                pushDown(node);
+                
+                if (index >= nodeStart + node.leftCount + node.size) {
+                    nodeStart += node.leftCount + node.size;
+                    node = node.right;
+                } else if (index < nodeStart + node.leftCount) {
+                    node = node.left;
+                } else {
+                    nodeStart += node.leftCount;
+                    return;
+                }
+            }
+        }
+    }
+
     /**
-     * The number of elements in this list. Counts also elements that are 
-     * {@code null].
-     * 
-     * @serial
+     * This inner class implements the ascending and the descending iterators 
+     * walking the blocks in order.
      */
-    private int size;
-    
+    private final class BlockTreeListIterator implements Iterator<E> {
+        
+        /**
+         * Whether this iterator walks from the tail towards the head.
+         */
+        private final boolean descending;
+        
+        /**
+         * The modification count at the creation of this iterator.
+         */
+        private final int expectedModificationCount = modificationCount;
+        
+        /**
+         * The block holding the next element, or {@code null} at the end.
+         */
+        private TreeListBlockNode<E> node;
+        
+        /**
+         * The logical index of the next element within {@code node}.
+         */
+        private int indexInBlock;
+        
+        BlockTreeListIterator(boolean descending) {
+            this.descending = descending;
+            this.node = descending ? tail : head;
+            this.indexInBlock = descending && tail != null ? tail.size - 1 : 0;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return node != null;
+        }
+        
+        @Override
+        public E next() {
+            if (modificationCount != expectedModificationCount) {
+                throw new ConcurrentModificationException();
+            }
+            
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            
+            E element = loadBlock(node, false).get(indexInBlock);
+            
+            if (descending) {
+                if (--indexInBlock < 0) {
+                    node = previousBlock(node);
+                    
+                    if (node != null) {
+                        indexInBlock = node.size - 1;
+                    }
+                }
+            } else if (++indexInBlock == node.size) {
+                node = nextBlock(node);
+                indexInBlock = 0;
+            }
+            
+            return element;
+        }
+    }
+
+    /**
+     * This static inner class implements a builder that fills whole blocks 
+     * first and attaches them to a new list in a single balanced bulk build,
+     * so that no per-element tree maintenance is needed. The builder is also
+     * a sink for streams ({@code stream.forEachOrdered(builder)}) and 
+     * iterators, and a {@link Collector} is provided by 
+     * {@link #collector()}. After {@link #build()} the builder is empty and 
+     * may be reused.
+     * 
+     * @param <E> the element type.
+     */
+    public static final class Builder<E> implements Consumer<E> {
+        
+        /**
+         * The capacity of all the block nodes.
+         */
+        private final int blockNodeCapacity;
+        
+        /**
+         * The minimum load factor of the built list.
+         */
+        private final float minimumLoadFactor;
+        
+        /**
+         * The blocks filled so far, in order.
+         */
+        private final List<TreeListBlockNode<E>> blocks = new ArrayList<>();
+        
+        /**
+         * The last block, or {@code null} if there are no blocks.
+         */
+        private TreeListBlockNode<E> current;
+        
+        /**
+         * The number of elements added so far.
+         */
+        private int size;
+        
+        /**
+         * Constructs a builder with default block capacity and minimum load 
+         * factor.
+         */
+        public Builder() {
+            this(DEFAULT_BLOCK_NODE_CAPACITY);
+        }
+        
+        /**
+         * Constructs a builder for lists whose block nodes have capacity 
+         * {@code requestedBlockNodeCapacity}.
+         * 
+         * @param requestedBlockNodeCapacity the requested block node capacity.
+         */
+        public Builder(int requestedBlockNodeCapacity) {
+            this(requestedBlockNodeCapacity, DEFAULT_REQUESTED_LOAD_FACTOR);
+        }
+        
+        /**
+         * Constructs a builder for lists with a given requested block node 
+         * capacity and a given requested minimum load factor.
+         * 
+         * @param requestedBlockNodeCapacity the requested block node capacity.
+         * @param requestedMinimumLoadFactor the requested minimum load factor.
+         */
+        public Builder(int requestedBlockNodeCapacity, 
+                       float requestedMinimumLoadFactor) {
+            this.blockNodeCapacity = 
+                    fixBlockNodeCapacity(requestedBlockNodeCapacity);
+            
+            this.minimumLoadFactor = 
+                    fixRequestedLoadFactor(requestedMinimumLoadFactor);
+        }
+        
+        /**
+         * Returns a collector accumulating the input elements into a new 
+         * block tree list with default settings.
+         * 
+         * @param <E> the element type.
+         * @return the collector.
+         */
+        public static <E> Collector<E, ?, BlockTreeList<E>> collector() {
+            return collector(DEFAULT_BLOCK_NODE_CAPACITY);
+        }
+        
+        /**
+         * Returns a collector accumulating the input elements into a new 
+         * block tree list with the requested block node capacity.
+         * 
+         * @param <E> the element type.
+         * @param requestedBlockNodeCapacity the requested block node capacity.
+         * @return the collector.
+         */
+        public static <E> Collector<E, ?, BlockTreeList<E>> 
+            collector(int requestedBlockNodeCapacity) {
+            return Collector.of(
+                    () -> new Builder<E>(requestedBlockNodeCapacity),
+                    Builder::add,
+                    Builder::combine,
+                    Builder::build);
+        }
+        
+        /**
+         * Appends the input element.
+         * 
+         * @param element the element to append.
+         * @return this builder.
+         */
+        public Builder<E> add(E element) {
+            if (current == null || current.isFull()) {
+                current = new TreeListBlockNode<>(blockNodeCapacity);
+                blocks.add(current);
+            }
+            
+            current.append(element);
+            size++;
+            return this;
+        }
+        
+        @Override
+        public void accept(E element) {
+            add(element);
+        }
+        
+        /**
+         * Appends all the remaining elements of the input iterator.
+         * 
+         * @param iterator the iterator to drain.
+         * @return this builder.
+         */
+        public Builder<E> addAll(Iterator<? extends E> iterator) {
+            while (iterator.hasNext()) {
+                add(iterator.next());
+            }
+            
+            return this;
+        }
+        
+        /**
+         * Appends all the elements of the input stream in encounter order.
+         * 
+         * @param stream the stream to drain.
+         * @return this builder.
+         */
+        public Builder<E> addAll(Stream<? extends E> stream) {
+            stream.forEachOrdered(this::add);
+            return this;
+        }
+        
+        /**
+         * Moves all the elements of {@code other} to the end of this builder.
+         * 
+         * @param other the builder to drain.
+         * @return this builder.
+         */
+        public Builder<E> combine(Builder<E> other) {
+            blocks.addAll(other.blocks);
+            size += other.size;
+            current = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+            other.reset();
+            return this;
+        }
+        
+        /**
+         * Returns the number of elements added so far.
+         * 
+         * @return the number of elements.
+         */
+        public int size() {
+            return size;
+        }
+        
+        /**
+         * Builds a new list out of the elements added so far, and empties 
+         * this builder.
+         * 
+         * @return the new list.
+         */
+        public BlockTreeList<E> build() {
+            BlockTreeList<E> list = 
+                    new BlockTreeList<>(blockNodeCapacity, minimumLoadFactor);
+            
+            list.attachBlocks(blocks, size);
+            reset();
+            return list;
+        }
+        
+        private void reset() {
+            blocks.clear();
+            current = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * The root node of this tree.
+     */
+    private transient TreeListBlockNode<E> root;
+    
+    /**
+     * The very first tree list block node.
+     */
+    private transient TreeListBlockNode<E> head;
+    
+    /**
+     * The very last tree list block node.
+     */
+    private transient TreeListBlockNode<E> tail;
+    
+    /**
+     * The number of elements in this list. Counts also elements that are 
+     * {@code null].
+     * 
+     * @serial
+     */
+    private int size;
+    
     /**
      * This field stores the number of times this list was structurally 
      * modified.
@@ -222,7 +1084,22 @@ public class BlockTreeList<E> implements List<E>,
      * Holds the number of blocks in this tree list.
      */
     private int blocks;
+
+    /**
+     * The spill store of the tiered mode, or {@code null} if all the blocks
+     * are kept in memory.
+     */
+    private transient BlockSpill<E> spill;
     
+    /**
+     * Whether a range of this list was ever reversed or transformed. If so, 
+     * the tree may contain pending reversal flags and transformations, and a
+     * node and its block links are up to date only after all the flags above
+     * it are pushed down, so that the traversals walk the tree instead of 
+     * following the block links.
+     */
+    private transient boolean lazyUpdates;
+
     /**
      * Constructs an empty tree list with default block capacity and minimum 
      * load factor.
@@ -308,6 +1185,35 @@ public class BlockTreeList<E> implements List<E>,
                 fixRequestedLoadFactor(requestedMinimumLoadFactor);
     }
     
+    /**
+     * Constructs an empty tree list in tiered mode. Only at most 
+     * {@code maximumResidentBlocks} least recently used blocks are kept in 
+     * memory; the rest are serialized to {@code spillFile} and transparently 
+     * faulted back in when accessed. Dirty blocks are written back on 
+     * eviction. The elements must be serializable.
+     * 
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     * @param requestedMinimumLoadFactor the requested minimum load factor.
+     * @param spillFile                  the spill file. Truncated if exists.
+     * @param maximumResidentBlocks      the maximum number of blocks to keep
+     *                                   in memory.
+     */
+    public BlockTreeList(int requestedBlockNodeCapacity,
+                         float requestedMinimumLoadFactor,
+                         Path spillFile,
+                         int maximumResidentBlocks) {
+        this(requestedBlockNodeCapacity, requestedMinimumLoadFactor);
+        
+        if (spillFile == null) {
+            throw new NullPointerException("The spill file is null.");
+        }
+        
+        this.spill = new BlockSpill<>(
+                spillFile, 
+                blockNodeCapacity,
+                Math.max(maximumResidentBlocks, MINIMUM_RESIDENT_BLOCKS));
+    }
+    
     /**
      * Constructs a tree list with a given requested block node capacity,
      * requested minimum load factor, and data to initialize the list with.
@@ -326,73 +1232,1694 @@ public class BlockTreeList<E> implements List<E>,
         this.minimumAllowedLoadFactor = 
                 fixRequestedLoadFactor(requestedMinimumLoadFactor);
         
-        //! Add the collection to the list.
         if (collection == null) {
             throw new NullPointerException("The input collection is null.");
         }
         
+        appendAll(collection);
+    }
+    
+    /**
+     * Loads a list from the newline-delimited records of the file at 
+     * {@code path}. See 
+     * {@link #load(ReadableByteChannel, Function, int, int)}.
+     * 
+     * @param <E>         the element type.
+     * @param path        the path of the file to load.
+     * @param decoder     the record decoder.
+     * @param parallelism the number of decoding threads.
+     * @return the loaded list.
+     * @throws IOException if the file cannot be read.
+     */
+    public static <E> BlockTreeList<E> 
+        load(Path path, 
+             Function<? super ByteBuffer, ? extends E> decoder, 
+             int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, 
+                                                    StandardOpenOption.READ)) {
+            return load(channel, decoder, parallelism);
+        }
+    }
+    
+    /**
+     * Loads a list with the default block capacity from the newline-delimited
+     * records read from {@code channel}. See 
+     * {@link #load(ReadableByteChannel, Function, int, int)}.
+     * 
+     * @param <E>         the element type.
+     * @param channel     the channel to read.
+     * @param decoder     the record decoder.
+     * @param parallelism the number of decoding threads.
+     * @return the loaded list.
+     * @throws IOException if the channel cannot be read.
+     */
+    public static <E> BlockTreeList<E> 
+        load(ReadableByteChannel channel, 
+             Function<? super ByteBuffer, ? extends E> decoder, 
+             int parallelism) throws IOException {
+        return load(channel, 
+                    decoder, 
+                    parallelism, 
+                    DEFAULT_BLOCK_NODE_CAPACITY);
+    }
+    
+    /**
+     * Loads a list from the records read from {@code channel} until its end.
+     * The records are delimited by {@code '\n'}; a final record without the 
+     * delimiter is loaded too. The input is read sequentially in chunks cut 
+     * at record boundaries, and each chunk is decoded into complete blocks by
+     * a {@link ForkJoinPool} of {@code parallelism} threads while the next 
+     * chunks are being read. The blocks of all the chunks are finally 
+     * attached in order as one balanced tree with a single bulk build, so 
+     * that the load time is bound by the read bandwidth as long as there are
+     * enough decoding threads.
+     * <p>
+     * The decoder receives each record as a buffer whose remaining bytes are
+     * the record without the delimiter. The buffer is reused for the next 
+     * record of the chunk, so the decoder must neither retain nor modify it.
+     * The decoder is called concurrently from several threads.
+     * 
+     * @param <E>                        the element type.
+     * @param channel                    the channel to read.
+     * @param decoder                    the record decoder.
+     * @param parallelism                the number of decoding threads.
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     * @return the loaded list.
+     * @throws IOException if the channel cannot be read.
+     */
+    public static <E> BlockTreeList<E> 
+        load(ReadableByteChannel channel, 
+             Function<? super ByteBuffer, ? extends E> decoder, 
+             int parallelism, 
+             int requestedBlockNodeCapacity) throws IOException {
+        return load(channel, 
+                    decoder, 
+                    parallelism, 
+                    requestedBlockNodeCapacity, 
+                    LOAD_CHUNK_BYTES);
+    }
+    
+    /**
+     * Implements {@link #load(ReadableByteChannel, Function, int, int)} with
+     * the given initial chunk size.
+     * 
+     * @param <E>                        the element type.
+     * @param channel                    the channel to read.
+     * @param decoder                    the record decoder.
+     * @param parallelism                the number of decoding threads.
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     * @param chunkBytes                 the initial chunk size in bytes.
+     * @return the loaded list.
+     * @throws IOException if the channel cannot be read.
+     */
+    static <E> BlockTreeList<E> 
+        load(ReadableByteChannel channel, 
+             Function<? super ByteBuffer, ? extends E> decoder, 
+             int parallelism, 
+             int requestedBlockNodeCapacity,
+             int chunkBytes) throws IOException {
+        Objects.requireNonNull(channel, "The input channel is null.");
+        Objects.requireNonNull(decoder, "The decoder is null.");
+        
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "The parallelism is " + parallelism + ".");
+        }
+        
+        int blockNodeCapacity = 
+                fixBlockNodeCapacity(requestedBlockNodeCapacity);
+        
+        Builder<E> result = new Builder<>(blockNodeCapacity);
+        
+        // The decoded chunks in reading order. At most two chunks per thread
+        // are in flight so that the input is not read far ahead.
+        Deque<ForkJoinTask<Builder<E>>> pending = new ArrayDeque<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ByteBuffer buffer = ByteBuffer.allocate(chunkBytes);
+        
+        try {
+            while (true) {
+                boolean endOfInput = channel.read(buffer) == -1;
+                
+                if (!endOfInput && buffer.hasRemaining()) {
+                    continue;
+                }
+                
+                buffer.flip();
+                int chunkEnd = buffer.limit();
+                
+                if (!endOfInput) {
+                    while (chunkEnd > 0 
+                            && buffer.get(chunkEnd - 1) 
+                            != LOAD_RECORD_DELIMITER) {
+                        chunkEnd--;
+                    }
+                }
+                
+                ByteBuffer nextBuffer = null;
+                
+                if (!endOfInput) {
+                    // A full buffer without a delimiter holds a part of a 
+                    // long record only, so keep reading into a larger buffer.
+                    int remaining = buffer.limit() - chunkEnd;
+                    nextBuffer = ByteBuffer.allocate(
+                            chunkEnd == 0 ? 
+                                    2 * buffer.capacity() : 
+                                    Math.max(chunkBytes, 2 * remaining));
+                    
+                    buffer.position(chunkEnd);
+                    nextBuffer.put(buffer);
+                }
+                
+                if (chunkEnd > 0) {
+                    ByteBuffer chunk = buffer;
+                    chunk.position(0);
+                    chunk.limit(chunkEnd);
+                    
+                    if (pending.size() == 2 * parallelism) {
+                        result.combine(pending.removeFirst().join());
+                    }
+                    
+                    pending.addLast(pool.submit(() -> 
+                            decodeChunk(chunk, decoder, blockNodeCapacity)));
+                }
+                
+                buffer = nextBuffer;
+                
+                if (endOfInput) {
+                    break;
+                }
+            }
+            
+            while (!pending.isEmpty()) {
+                result.combine(pending.removeFirst().join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        return result.build();
+    }
+    
+    /**
+     * Decodes the records of the input chunk into blocks.
+     * 
+     * @param <E>               the element type.
+     * @param chunk             the chunk, whose remaining bytes are complete 
+     *                          records.
+     * @param decoder           the record decoder.
+     * @param blockNodeCapacity the block node capacity.
+     * @return the builder holding the decoded blocks.
+     */
+    private static <E> Builder<E> 
+        decodeChunk(ByteBuffer chunk,
+                    Function<? super ByteBuffer, ? extends E> decoder,
+                    int blockNodeCapacity) {
+        Builder<E> builder = new Builder<>(blockNodeCapacity);
+        ByteBuffer record = chunk.duplicate();
+        int recordStart = 0;
+        int chunkEnd = chunk.limit();
+        
+        for (int i = 0; i <= chunkEnd; i++) {
+            if (i == chunkEnd && recordStart == chunkEnd) {
+                break;
+            }
+            
+            if (i == chunkEnd || chunk.get(i) == LOAD_RECORD_DELIMITER) {
+                record.clear();
+                record.position(recordStart);
+                record.limit(i);
+                builder.add(decoder.apply(record));
+                recordStart = i + 1;
+            }
+        }
+        
+        return builder;
+    }
+    
+    @Override
+    public void addFirst(E e) {
+        if (root == null) {
+            root = new TreeListBlockNode<>(blockNodeCapacity);
+            head = root;
+            tail = root;
+            root.append(e);
+            blocks = 1;
+            loadBlock(root, true);
+        } else if (loadBlock(head, true).isFull()) {
+            TreeListBlockNode<E> newNode = 
+                    new TreeListBlockNode<>(blockNodeCapacity);
+            
+            newNode.append(e);
+            loadBlock(newNode, true);
+            newNode.parent = head;
+            head.left = newNode;
+            head.prev = newNode;
+            newNode.next = head;
+            invalidateHashes(head);
+            head = newNode;
+            blocks++;
+            
+            // Now restore the AVL-tree invariants:
+            updateLeftCounts(newNode, 1);
+            fixAfterInsertion(newNode);
+        } else {
+            head.prepend(e);
+            updateLeftCounts(head, 1);
+            invalidateHashes(head);
+        }
+        
+        size++;
+        modificationCount++;
+    }
+
+    @Override
+    public void addLast(E e) {
+        if (root == null) {
+            root = new TreeListBlockNode<>(blockNodeCapacity);
+            head = root;
+            tail = root;
+            root.append(e);
+            blocks = 1;
+            loadBlock(root, true);
+        } else if (loadBlock(tail, true).isFull()) {
+            TreeListBlockNode<E> newNode =
+                    new TreeListBlockNode<>(blockNodeCapacity);
+
+            newNode.append(e);
+            loadBlock(newNode, true);
+            newNode.parent = tail;
+            tail.right = newNode;
+            tail.next = newNode;
+            newNode.prev = tail;
+            invalidateHashes(tail);
+            tail = newNode;
+            blocks++;
+           
+            // Now restore the AVL-tree invariant:
+            updateLeftCounts(newNode.parent, 1);
+            fixAfterInsertion(newNode);
+        } else {
+            tail.append(e);
+            invalidateHashes(tail);
+        }
+        
+        size++;
+        modificationCount++;
+    }
+    
+    /**
+     * Appends all the input elements to the end of this list. Tops up the 
+     * last block first, then fills whole new blocks and attaches them to the
+     * tree in batches of balanced subtrees, each with a single join on the 
+     * right spine, so that the tree maintenance costs amortized constant time
+     * per block.
+     * 
+     * @param elements the elements to append.
+     */
+    public void appendAll(Iterable<? extends E> elements) {
+        Objects.requireNonNull(elements, "The input elements are null.");
+        Iterator<? extends E> iterator = elements.iterator();
+        
+        if (tail != null && iterator.hasNext()) {
+            loadBlock(tail, true);
+            
+            // The tail is never in a left subtree, so no counts to update.
+            while (!tail.isFull() && iterator.hasNext()) {
+                tail.append(iterator.next());
+                size++;
+            }
+            
+            invalidateHashes(tail);
+            modificationCount++;
+        }
+        
+        Builder<E> builder = 
+                new Builder<>(blockNodeCapacity, minimumAllowedLoadFactor);
+        
+        while (iterator.hasNext()) {
+            builder.add(iterator.next());
+            
+            if (builder.current.isFull() 
+                    && builder.blocks.size() >= APPEND_BATCH_BLOCKS) {
+                attachBlocks(builder.blocks, builder.size);
+                builder.reset();
+            }
+        }
+        
+        attachBlocks(builder.blocks, builder.size);
+    }
+    
+    /**
+     * Returns the number of block accesses that found the block in memory. 
+     * Always zero unless this list is in tiered mode.
+     * 
+     * @return the number of block cache hits.
+     */
+    public long getBlockCacheHits() {
+        return spill == null ? 0L : spill.hits;
+    }
+    
+    /**
+     * Returns the number of block accesses that had to read the block from 
+     * the spill file. Always zero unless this list is in tiered mode.
+     * 
+     * @return the number of block cache misses.
+     */
+    public long getBlockCacheMisses() {
+        return spill == null ? 0L : spill.misses;
+    }
+    
+    /**
+     * Closes and deletes the spill file of the tiered mode. This list must 
+     * not be accessed afterwards. Does nothing unless this list is in tiered 
+     * mode.
+     */
+    public void closeSpillFile() {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+    
+    /**
+     * Makes sure that the block of the input node is in memory and up to 
+     * date, and returns the node. Faults the block in from the spill file in
+     * tiered mode, and applies the pending transformation of the block, if 
+     * any. All the nodes above {@code node} must have been pushed down.
+     * 
+     * @param node       the block node to load.
+     * @param forWriting whether the block is going to be modified.
+     * @return the input node.
+     */
+    private TreeListBlockNode<E> loadBlock(TreeListBlockNode<E> node,
+                                           boolean forWriting) {
+        UnaryOperator<E> transform = node.blockTransform;
+        
+        if (spill != null) {
+            spill.load(node, forWriting || transform != null);
+        }
+        
+        if (transform != null) {
+            node.blockTransform = null;
+            
+            for (int i = 0; i < node.size; i++) {
+                int index = (node.headIndex + i) % node.array.length;
+                node.array[index] = transform.apply(node.array[index]);
+            }
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Replaces the contents of the input block with the given range of 
+     * {@code source}.
+     * 
+     * @param node   the block node to fill.
+     * @param source the source array.
+     * @param from   the index of the first element to copy.
+     * @param length the number of elements to copy.
+     */
+    private static <E> void fillBlock(TreeListBlockNode<E> node,
+                                      Object[] source,
+                                      int from,
+                                      int length) {
+        Arrays.fill(node.array, null);
+        System.arraycopy(source, from, node.array, 0, length);
+        node.headIndex = 0;
+        node.reversed = false;
+        node.size = length;
+    }
+    
+    /**
+     * Links {@code newNode} into the tree as the in-order successor of 
+     * {@code node} and restores the AVL-tree invariants.
+     * 
+     * @param node    the node after which to insert.
+     * @param newNode the new, non-empty block node.
+     */
+    private void insertNodeAfter(TreeListBlockNode<E> node, 
+                                 TreeListBlockNode<E> newNode) {
+        pushDownToNeighbours(node);
+        
+        if (node.right == null) {
+            node.right = newNode;
+            newNode.parent = node;
+        } else {
+            // The successor block is the leftmost node of the right subtree.
+            node.next.left = newNode;
+            newNode.parent = node.next;
+        }
+        
+        newNode.prev = node;
+        newNode.next = node.next;
+        
+        if (node.next == null) {
+            tail = newNode;
+        } else {
+            node.next.prev = newNode;
+        }
+        
+        node.next = newNode;
+        blocks++;
+        loadBlock(newNode, true);
+        updateLeftCounts(newNode, newNode.size);
+        invalidateHashes(newNode.parent);
+        fixAfterInsertion(newNode);
+    }
+    
+    /**
+     * Unlinks the input empty block node from the tree and from the block 
+     * chain, and restores the AVL-tree invariants. A node with two children
+     * is replaced by its successor node.
+     * 
+     * @param node the empty block node to unlink.
+     */
+    private void unlinkNode(TreeListBlockNode<E> node) {
+        pushDownToNeighbours(node);
+        
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        
+        TreeListBlockNode<E> fixStart;
+        
+        if (node.left != null && node.right != null) {
+            TreeListBlockNode<E> successor = node.right;
+            
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            
+            // All the nodes whose subtrees change are on the path from the 
+            // successor up to the root.
+            invalidateHashes(successor);
+            
+            if (successor.parent == node) {
+                fixStart = successor;
+            } else {
+                fixStart = successor.parent;
+                
+                // The successor leaves the left subtrees of all the nodes 
+                // between it and the removed node.
+                for (TreeListBlockNode<E> n = fixStart; 
+                        n != node; 
+                        n = n.parent) {
+                    n.leftCount -= successor.size;
+                }
+                
+                fixStart.left = successor.right;
+                
+                if (successor.right != null) {
+                    successor.right.parent = fixStart;
+                }
+                
+                successor.right = node.right;
+                node.right.parent = successor;
+            }
+            
+            successor.left = node.left;
+            node.left.parent = successor;
+            successor.leftCount = node.leftCount;
+            successor.height = node.height;
+            successor.parent = node.parent;
+            replaceChild(node.parent, node, successor);
+        } else {
+            invalidateHashes(node);
+            TreeListBlockNode<E> child = 
+                    node.left != null ? node.left : node.right;
+            
+            if (child != null) {
+                child.parent = node.parent;
+            }
+            
+            replaceChild(node.parent, node, child);
+            fixStart = node.parent;
+        }
+        
+        node.left = null;
+        node.right = null;
+        node.parent = null;
+        node.prev = null;
+        node.next = null;
+        blocks--;
+        
+        if (spill != null) {
+            spill.discard(node);
+        }
+        
+        fixAfterDeletion(fixStart);
+    }
+    
+    /**
+     * Makes sure that the element with the input index begins a block by 
+     * splitting the block containing it if necessary.
+     * 
+     * @param index the index of the element that should begin a block.
+     */
+    private void splitBlockAt(int index) {
+        if (index == 0 || index == size) {
+            return;
+        }
+        
+        BlockCursor cursor = new BlockCursor();
+        cursor.seek(index);
+        int offset = index - cursor.nodeStart;
+        
+        if (offset == 0) {
+            return;
+        }
+        
+        TreeListBlockNode<E> node = loadBlock(cursor.node, true);
+        Object[] elements = new Object[node.size];
+        
+        for (int i = 0; i < node.size; i++) {
+            elements[i] = node.get(i);
+        }
+        
+        int movedCount = node.size - offset;
+        fillBlock(node, elements, 0, offset);
+        updateLeftCounts(node, -movedCount);
+        invalidateHashes(node);
+        
+        TreeListBlockNode<E> newNode = 
+                new TreeListBlockNode<>(blockNodeCapacity);
+        
+        fillBlock(newNode, elements, offset, movedCount);
+        insertNodeAfter(node, newNode);
+        modificationCount++;
+    }
+    
+    /**
+     * Splits the detached tree {@code tree} into two detached trees, the 
+     * first one containing the first {@code count} elements. The split point
+     * must be a block boundary.
+     * 
+     * @param tree  the tree to split.
+     * @param count the number of elements going to the first tree.
+     * @return the two trees.
+     */
+    private NodePair<E> split(TreeListBlockNode<E> tree, int count) {
+        if (tree == null) {
+            return new NodePair<>(null, null);
+        }
+        
+        pushDown(tree);
+        TreeListBlockNode<E> leftTree  = detachLeft(tree);
+        TreeListBlockNode<E> rightTree = detachRight(tree);
+        
+        if (count <= tree.leftCount) {
+            NodePair<E> pair = split(leftTree, count);
+            return new NodePair<>(pair.first, 
+                                  join(pair.second, tree, rightTree));
+        }
+        
+        NodePair<E> pair = 
+                split(rightTree, count - tree.leftCount - tree.size);
+        
+        return new NodePair<>(join(leftTree, tree, pair.first), pair.second);
+    }
+    
+    /**
+     * Concatenates two detached trees by removing the last node of the first
+     * tree and joining the trees with it.
+     * 
+     * @param tree1 the first tree.
+     * @param tree2 the second tree.
+     * @return the concatenated tree.
+     */
+    private TreeListBlockNode<E> concat(TreeListBlockNode<E> tree1,
+                                        TreeListBlockNode<E> tree2) {
+        if (tree1 == null) {
+            return tree2;
+        }
+        
+        if (tree2 == null) {
+            return tree1;
+        }
+        
+        NodePair<E> restAndLast = splitLast(tree1);
+        return join(restAndLast.first, restAndLast.second, tree2);
+    }
+    
+    /**
+     * Removes the last node of the detached tree {@code tree}.
+     * 
+     * @param tree the tree.
+     * @return the remaining detached tree and the detached last node.
+     */
+    private NodePair<E> splitLast(TreeListBlockNode<E> tree) {
+        pushDown(tree);
+        TreeListBlockNode<E> leftTree  = detachLeft(tree);
+        TreeListBlockNode<E> rightTree = detachRight(tree);
+        
+        if (rightTree == null) {
+            tree.leftCount = 0;
+            tree.height = 0;
+            return new NodePair<>(leftTree, tree);
+        }
+        
+        NodePair<E> pair = splitLast(rightTree);
+        return new NodePair<>(join(leftTree, tree, pair.first), pair.second);
+    }
+    
+    /**
+     * This static inner class holds the two results of splitting a detached
+     * tree.
+     * 
+     * @param <E> the element type.
+     */
+    private static final class NodePair<E> {
+        
+        /**
+         * The first result, or {@code null} if it is empty.
+         */
+        final TreeListBlockNode<E> first;
+        
+        /**
+         * The second result, or {@code null} if it is empty.
+         */
+        final TreeListBlockNode<E> second;
+        
+        NodePair(TreeListBlockNode<E> first, TreeListBlockNode<E> second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+    
+    /**
+     * Joins the detached trees {@code tree1} and {@code tree2} using the 
+     * detached node {@code middle}, such that the in-order sequence of the 
+     * result is the one of {@code tree1}, {@code middle} and {@code tree2}. 
+     * The taller tree is descended along its inner spine to the height of the
+     * other one, {@code middle} is put there, and the spine is rebalanced.
+     * 
+     * @param tree1  the tree holding the first elements.
+     * @param middle the middle node.
+     * @param tree2  the tree holding the last elements.
+     * @return the joined detached tree.
+     */
+    private TreeListBlockNode<E> join(TreeListBlockNode<E> tree1,
+                                      TreeListBlockNode<E> middle,
+                                      TreeListBlockNode<E> tree2) {
+        int height1 = height(tree1);
+        int height2 = height(tree2);
+        
+        if (height1 > height2 + 1) {
+            TreeListBlockNode<E> parent = null;
+            TreeListBlockNode<E> node = tree1;
+            
+            while (height(node) > height2 + 1) {
+                pushDown(node);
+                parent = node;
+                node = node.right;
+            }
+            
+            link(middle, node, tree2);
+            parent.right = middle;
+            middle.parent = parent;
+            invalidateHashes(parent);
+            return rebalanceUp(parent);
+        }
+        
+        if (height2 > height1 + 1) {
+            int addedCount = subtreeSize(tree1) + middle.size;
+            TreeListBlockNode<E> parent = null;
+            TreeListBlockNode<E> node = tree2;
+            
+            while (height(node) > height1 + 1) {
+                pushDown(node);
+                node.leftCount += addedCount;
+                parent = node;
+                node = node.left;
+            }
+            
+            link(middle, tree1, node);
+            parent.left = middle;
+            middle.parent = parent;
+            invalidateHashes(parent);
+            return rebalanceUp(parent);
+        }
+        
+        link(middle, tree1, tree2);
+        middle.parent = null;
+        return middle;
+    }
+    
+    /**
+     * Makes {@code leftTree} and {@code rightTree} the children of 
+     * {@code node}, whose children must have been detached.
+     * 
+     * @param node      the new parent node.
+     * @param leftTree  the new left subtree.
+     * @param rightTree the new right subtree.
+     */
+    private static <E> void link(TreeListBlockNode<E> node,
+                                 TreeListBlockNode<E> leftTree,
+                                 TreeListBlockNode<E> rightTree) {
+        node.left = leftTree;
+        node.right = rightTree;
+        
+        if (leftTree != null) {
+            leftTree.parent = node;
+        }
+        
+        if (rightTree != null) {
+            rightTree.parent = node;
+        }
+        
+        node.leftCount = subtreeSize(leftTree);
+        node.height = Math.max(height(leftTree), height(rightTree)) + 1;
+        node.hashValid = false;
+    }
+    
+    private static <E> TreeListBlockNode<E> 
+        detachLeft(TreeListBlockNode<E> node) {
+        TreeListBlockNode<E> child = node.left;
+        node.left = null;
+        node.hashValid = false;
+        
+        if (child != null) {
+            child.parent = null;
+        }
+        
+        return child;
+    }
+        
+    private static <E> TreeListBlockNode<E> 
+        detachRight(TreeListBlockNode<E> node) {
+        TreeListBlockNode<E> child = node.right;
+        node.right = null;
+        node.hashValid = false;
+        
+        if (child != null) {
+            child.parent = null;
+        }
+        
+        return child;
+    }
+    
+    /**
+     * Rebalances all the nodes from {@code node} up to the root of its 
+     * (possibly detached) tree, and returns that root.
+     * 
+     * @param node the lowest node to rebalance.
+     * @return the root of the tree.
+     */
+    private TreeListBlockNode<E> rebalanceUp(TreeListBlockNode<E> node) {
+        while (true) {
+            node = rebalance(node);
+            
+            if (node.parent == null) {
+                return node;
+            }
+            
+            node = node.parent;
+        }
+    }
+    
+    /**
+     * Returns the number of elements in the subtree rooted at {@code node}.
+     * The count does not depend on pending reversal flags, and is computed by
+     * walking the right spine.
+     * 
+     * @param node the root of the subtree.
+     * @return the number of elements in the subtree.
+     */
+    private static <E> int subtreeSize(TreeListBlockNode<E> node) {
+        int count = 0;
+        
+        while (node != null) {
+            count += node.leftCount + node.size;
+            node = node.right;
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Reverses the subtree rooted at {@code node}: swaps the children, the 
+     * block links, the block direction and the forward and reverse hashes of
+     * {@code node} and toggles the pending flag for its children. The hashes
+     * of the node thus stay valid.
+     * 
+     * @param node  the root of the subtree to reverse.
+     * @param count the number of elements in the subtree.
+     */
+    private static <E> void reverseSubtree(TreeListBlockNode<E> node, 
+                                           int count) {
+        if (node == null) {
+            return;
+        }
+        
+        TreeListBlockNode<E> tmp = node.left;
+        node.left = node.right;
+        node.right = tmp;
+        
+        tmp = node.prev;
+        node.prev = node.next;
+        node.next = tmp;
+        
+        node.leftCount = count - node.leftCount - node.size;
+        node.reversed = !node.reversed;
+        node.reversePending = !node.reversePending;
+        
+        int hash = node.blockHash;
+        node.blockHash = node.reverseBlockHash;
+        node.reverseBlockHash = hash;
+        
+        hash = node.subtreeHash;
+        node.subtreeHash = node.reverseSubtreeHash;
+        node.reverseSubtreeHash = hash;
+        
+        long digest = node.blockDigest;
+        node.blockDigest = node.reverseBlockDigest;
+        node.reverseBlockDigest = digest;
+        
+        digest = node.subtreeDigest;
+        node.subtreeDigest = node.reverseSubtreeDigest;
+        node.reverseSubtreeDigest = digest;
+    }
+    
+    /**
+     * Pushes the pending reversal flag and the pending subtree transformation
+     * of {@code node}, if any, to its children. All the nodes above 
+     * {@code node} must have been pushed down.
+     * 
+     * @param node the node whose flags to push down.
+     */
+    private static <E> void pushDown(TreeListBlockNode<E> node) {
+        if (node.reversePending) {
+            reverseSubtree(node.left, node.leftCount);
+            reverseSubtree(node.right, subtreeSize(node.right));
+            node.reversePending = false;
+        }
+        
+        if (node.subtreeTransform != null) {
+            transformSubtreeLazily(node.left, node.subtreeTransform);
+            transformSubtreeLazily(node.right, node.subtreeTransform);
+            node.subtreeTransform = null;
+        }
+    }
+    
+    /**
+     * Pushes down the flags on the paths from {@code node} to its neighbour 
+     * blocks within its subtree, so that the block links of the neighbours 
+     * can be read and written.
+     * 
+     * @param node the node, all of whose ancestors have been pushed down.
+     */
+    private static <E> void pushDownToNeighbours(TreeListBlockNode<E> node) {
+        pushDown(node);
+        
+        for (TreeListBlockNode<E> n = node.left; n != null; n = n.right) {
+            pushDown(n);
+        }
+        
+        for (TreeListBlockNode<E> n = node.right; n != null; n = n.left) {
+            pushDown(n);
+        }
+    }
+    
+    private static <E> TreeListBlockNode<E> 
+        leftmostNode(TreeListBlockNode<E> node) {
+        if (node == null) {
+            return null;
+        }
+        
+        pushDown(node);
+        
+        while (node.left != null) {
+            node = node.left;
+            pushDown(node);
+        }
+        
+        return node;
+    }
+    
+    private static <E> TreeListBlockNode<E> 
+        rightmostNode(TreeListBlockNode<E> node) {
+        if (node == null) {
+            return null;
+        }
+        
+        pushDown(node);
+        
+        while (node.right != null) {
+            node = node.right;
+            pushDown(node);
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Returns the block following {@code node}, all of whose ancestors must 
+     * have been pushed down. The returned block satisfies the same.
+     * 
+     * @param node the current block node.
+     * @return the next block node or {@code null}.
+     */
+    private TreeListBlockNode<E> nextBlock(TreeListBlockNode<E> node) {
+        if (!lazyUpdates) {
+            return node.next;
+        }
+        
+        pushDown(node);
+        
+        if (node.right != null) {
+            return leftmostNode(node.right);
+        }
+        
+        while (node.parent != null && node.parent.right == node) {
+            node = node.parent;
+        }
+        
+        return node.parent;
+    }
+        
+    /**
+     * Returns the block preceding {@code node}, all of whose ancestors must 
+     * have been pushed down. The returned block satisfies the same.
+     * 
+     * @param node the current block node.
+     * @return the previous block node or {@code null}.
+     */
+    private TreeListBlockNode<E> previousBlock(TreeListBlockNode<E> node) {
+        if (!lazyUpdates) {
+            return node.prev;
+        }
+        
+        pushDown(node);
+        
+        if (node.left != null) {
+            return rightmostNode(node.left);
+        }
+        
+        while (node.parent != null && node.parent.left == node) {
+            node = node.parent;
+        }
+        
+        return node.parent;
+    }
+    
+    /**
+     * Applies {@code operator} to the elements of the subtree rooted at 
+     * {@code node} that lie within {@code [fromIndex, toIndex)}.
+     * 
+     * @param node         the root of the subtree.
+     * @param subtreeStart the index of the first element of the subtree.
+     * @param subtreeSize  the number of elements in the subtree.
+     * @param fromIndex    the first index of the range.
+     * @param toIndex      the index one past the last index of the range.
+     * @param operator     the operator to apply.
+     */
+    private void transformSubtree(TreeListBlockNode<E> node,
+                                  int subtreeStart,
+                                  int subtreeSize,
+                                  int fromIndex,
+                                  int toIndex,
+                                  UnaryOperator<E> operator) {
+        if (node == null 
+                || toIndex <= subtreeStart 
+                || subtreeStart + subtreeSize <= fromIndex) {
+            return;
+        }
+        
+        if (fromIndex <= subtreeStart 
+                && subtreeStart + subtreeSize <= toIndex) {
+            transformSubtreeLazily(node, operator);
+            return;
+        }
+        
+        pushDown(node);
+        node.hashValid = false;
+        transformSubtree(node.left, 
+                         subtreeStart, 
+                         node.leftCount, 
+                         fromIndex, 
+                         toIndex, 
+                         operator);
+        
+        int blockStart = subtreeStart + node.leftCount;
+        int from = Math.max(fromIndex, blockStart) - blockStart;
+        int to = Math.min(toIndex, blockStart + node.size) - blockStart;
+        
+        if (from == 0 && to == node.size) {
+            node.blockTransform = compose(node.blockTransform, operator);
+        } else if (from < to) {
+            loadBlock(node, true);
+            
+            for (int i = from; i < to; i++) {
+                node.set(i, operator.apply(node.get(i)));
+            }
+        }
+        
+        transformSubtree(node.right, 
+                         blockStart + node.size, 
+                         subtreeSize - node.leftCount - node.size,
+                         fromIndex, 
+                         toIndex, 
+                         operator);
+    }
+    
+    /**
+     * Tags the subtree rooted at {@code node} with the pending 
+     * transformation {@code operator}.
+     * 
+     * @param node     the root of the subtree.
+     * @param operator the operator to apply to the subtree.
+     */
+    private static <E> void transformSubtreeLazily(TreeListBlockNode<E> node,
+                                                   UnaryOperator<E> operator) {
+        if (node != null) {
+            node.blockTransform = compose(node.blockTransform, operator);
+            node.subtreeTransform = compose(node.subtreeTransform, operator);
+            node.hashValid = false;
+        }
+    }
+    
+    /**
+     * Returns the operator applying {@code first} and then {@code second}. 
+     * The composition is a flat {@link TransformChain}, so that any number of
+     * pending transformations is applied in a loop instead of by nested 
+     * calls.
+     * 
+     * @param first  the first operator, or {@code null} for identity.
+     * @param second the second operator.
+     * @return the composed operator.
+     */
+    private static <E> UnaryOperator<E> compose(UnaryOperator<E> first, 
+                                                UnaryOperator<E> second) {
+        if (first == null) {
+            return second;
+        }
+        
+        TransformChain<E> chain = first instanceof TransformChain ?
+                                  (TransformChain<E>) first :
+                                  new TransformChain<>(first);
+        
+        if (!(second instanceof TransformChain)) {
+            return chain.append(second);
+        }
+        
+        TransformChain<E> secondChain = (TransformChain<E>) second;
+        
+        for (int i = 0; i < secondChain.length; i++) {
+            chain = chain.append(secondChain.operators.get(i));
+        }
+        
+        return chain;
+    }
+    
+    /**
+     * This static inner class implements a composition of operators applied
+     * one after another. The chains share their operator lists: a chain is a
+     * prefix of its list, and appending to a chain that ends at the end of 
+     * its list extends the list in place, so that composing a run of 
+     * transformations one at a time takes amortized constant time per 
+     * operator.
+     * 
+     * @param <E> the element type.
+     */
+    private static final class TransformChain<E> implements UnaryOperator<E> {
+        
+        /**
+         * The operator list whose prefix this chain is.
+         */
+        final List<UnaryOperator<E>> operators;
+        
+        /**
+         * The number of operators in this chain.
+         */
+        final int length;
+        
+        TransformChain(UnaryOperator<E> operator) {
+            this.operators = new ArrayList<>();
+            this.operators.add(operator);
+            this.length = 1;
+        }
+        
+        private TransformChain(List<UnaryOperator<E>> operators, int length) {
+            this.operators = operators;
+            this.length = length;
+        }
+        
+        /**
+         * Returns the chain applying this chain and then {@code operator}.
+         * 
+         * @param operator the operator to apply last.
+         * @return the extended chain.
+         */
+        TransformChain<E> append(UnaryOperator<E> operator) {
+            List<UnaryOperator<E>> list = operators;
+            
+            if (list.size() != length) {
+                list = new ArrayList<>(operators.subList(0, length));
+            }
+            
+            list.add(operator);
+            return new TransformChain<>(list, length + 1);
+        }
+        
+        @Override
+        public E apply(E element) {
+            for (int i = 0; i < length; i++) {
+                element = operators.get(i).apply(element);
+            }
+            
+            return element;
+        }
+    }
+    
+    /**
+     * Appends the input fresh blocks to the end of this list. The blocks but
+     * the first one are built into a perfectly balanced subtree, which is 
+     * then joined with the current tree using the first block as the middle 
+     * node.
+     * 
+     * @param nodes        the blocks to append, in order.
+     * @param elementCount the total number of elements in {@code nodes}.
+     */
+    private void attachBlocks(List<TreeListBlockNode<E>> nodes, 
+                              int elementCount) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        
+        int[] counts = new int[nodes.size() + 1];
+        TreeListBlockNode<E> previous = tail;
+        
+        for (int i = 0; i < nodes.size(); i++) {
+            TreeListBlockNode<E> node = nodes.get(i);
+            counts[i + 1] = counts[i] + node.size;
+            node.prev = previous;
+            
+            if (previous != null) {
+                previous.next = node;
+            }
+            
+            previous = node;
+            loadBlock(node, true);
+        }
+        
+        TreeListBlockNode<E> first = nodes.get(0);
+        TreeListBlockNode<E> rest = buildTree(nodes, 1, nodes.size(), counts);
+        
+        root = join(root, first, rest);
+        root.parent = null;
+        
+        if (head == null) {
+            head = first;
+        }
+        
+        tail = previous;
+        size += elementCount;
+        blocks += nodes.size();
+        modificationCount++;
+    }
+    
+    /**
+     * Links the blocks {@code nodes[fromIndex], ..., nodes[toIndex - 1]} into
+     * a perfectly balanced detached tree.
+     * 
+     * @param nodes     the blocks.
+     * @param fromIndex the index of the first block.
+     * @param toIndex   the index one past the last block.
+     * @param counts    {@code counts[i]} is the number of elements in the 
+     *                  first {@code i} blocks.
+     * @return the root of the tree.
+     */
+    private static <E> TreeListBlockNode<E> 
+        buildTree(List<TreeListBlockNode<E>> nodes, 
+                  int fromIndex, 
+                  int toIndex, 
+                  int[] counts) {
+        if (fromIndex >= toIndex) {
+            return null;
+        }
+        
+        int middle = (fromIndex + toIndex) >>> 1;
+        TreeListBlockNode<E> node = nodes.get(middle);
+        TreeListBlockNode<E> leftTree = 
+                buildTree(nodes, fromIndex, middle, counts);
+        
+        TreeListBlockNode<E> rightTree = 
+                buildTree(nodes, middle + 1, toIndex, counts);
+        
+        node.left = leftTree;
+        node.right = rightTree;
+        node.parent = null;
+        
+        if (leftTree != null) {
+            leftTree.parent = node;
+        }
+        
+        if (rightTree != null) {
+            rightTree.parent = node;
+        }
+        
+        node.leftCount = counts[middle] - counts[fromIndex];
+        node.height = Math.max(height(leftTree), height(rightTree)) + 1;
+        return node;
+    }
+    
+    /**
+     * Checks the structural invariants of this list and throws an 
+     * {@link IllegalStateException} describing the first violation found. The
+     * list is not modified: the pending reversal and transformation flags 
+     * stay in place and are treated as logical state. Since a pending 
+     * reversal has not yet touched the nodes below it, the heights, the AVL 
+     * balance, the parent links and the left subtree counts of all the nodes
+     * and the block sizes are checked as stored. The hash validity flags are 
+     * checked against the pending transformations, and the 
+     * {@code prev}/{@code next} block chain against the logical in-order 
+     * sequence of the blocks, reading the links of the nodes below an odd 
+     * number of pending reversals swapped. Runs in time linear in the number
+     * of blocks.
+     */
+    void checkInvariants() {
+        List<TreeListBlockNode<E>> nodes = new ArrayList<>(blocks);
+        List<Boolean> flips = new ArrayList<>(blocks);
+        
+        if (root != null && root.parent != null) {
+            throw new IllegalStateException("The root has a parent.");
+        }
+        
+        int total = checkSubtree(root, false, nodes, flips);
+        
+        if (total != size) {
+            throw new IllegalStateException(
+                    "The tree holds " + total + " elements, size is " + size +
+                    ".");
+        }
+        
+        if (nodes.size() != blocks) {
+            throw new IllegalStateException(
+                    "The tree holds " + nodes.size() + " blocks, the block " + 
+                    "count is " + blocks + ".");
+        }
+        
+        TreeListBlockNode<E> expectedPrev = null;
+        TreeListBlockNode<E> lastNext = null;
+        
+        for (int i = 0; i < nodes.size(); i++) {
+            TreeListBlockNode<E> node = nodes.get(i);
+            boolean flipped = flips.get(i);
+            TreeListBlockNode<E> prev = flipped ? node.next : node.prev;
+            TreeListBlockNode<E> next = flipped ? node.prev : node.next;
+            
+            if (prev != expectedPrev 
+                    || (i + 1 < nodes.size() && next != nodes.get(i + 1))) {
+                throw new IllegalStateException(
+                        "The block chain disagrees with the tree order.");
+            }
+            
+            expectedPrev = node;
+            lastNext = next;
+        }
+        
+        TreeListBlockNode<E> first = nodes.isEmpty() ? null : nodes.get(0);
+        
+        if (head != first || tail != expectedPrev || lastNext != null) {
+            throw new IllegalStateException(
+                    "The head or the tail block is wrong.");
+        }
+    }
+    
+    /**
+     * Checks the invariants of the subtree rooted at {@code node} and 
+     * appends its nodes in logical order to {@code nodes}.
+     * 
+     * @param node    the root of the subtree.
+     * @param flipped whether an odd number of pending reversals lies above 
+     *                {@code node}, so that its logical left child is the 
+     *                stored right one and its links are swapped.
+     * @param nodes   the list of the nodes checked so far.
+     * @param flips   the {@code flipped} values of the nodes in 
+     *                {@code nodes}.
+     * @return the number of elements in the subtree.
+     */
+    private int checkSubtree(TreeListBlockNode<E> node, 
+                             boolean flipped,
+                             List<TreeListBlockNode<E>> nodes,
+                             List<Boolean> flips) {
+        if (node == null) {
+            return 0;
+        }
+        
+        if (node.hashValid 
+                && (node.blockTransform != null 
+                    || node.subtreeTransform != null)) {
+            throw new IllegalStateException(
+                    "A node with a pending transformation has a valid hash.");
+        }
+        
+        for (TreeListBlockNode<E> child : Arrays.asList(node.left, 
+                                                        node.right)) {
+            if (child != null && child.parent != node) {
+                throw new IllegalStateException(
+                        "A child does not point to its parent.");
+            }
+            
+            if (child != null && !child.hashValid && node.hashValid) {
+                throw new IllegalStateException(
+                        "A node with an invalid hash has a valid parent.");
+            }
+        }
+        
+        boolean childrenFlipped = flipped ^ node.reversePending;
+        int firstTotal = checkSubtree(flipped ? node.right : node.left, 
+                                      childrenFlipped, 
+                                      nodes, 
+                                      flips);
+        nodes.add(node);
+        flips.add(flipped);
+        int secondTotal = checkSubtree(flipped ? node.left : node.right, 
+                                       childrenFlipped, 
+                                       nodes, 
+                                       flips);
+        int leftTotal = flipped ? secondTotal : firstTotal;
+        int rightTotal = flipped ? firstTotal : secondTotal;
+        
+        if (node.leftCount != leftTotal) {
+            throw new IllegalStateException(
+                    "The left count is " + node.leftCount + ", the left " + 
+                    "subtree holds " + leftTotal + " elements.");
+        }
+        
+        if (node.height != Math.max(height(node.left), 
+                                    height(node.right)) + 1) {
+            throw new IllegalStateException("A node height is wrong.");
+        }
+        
+        if (Math.abs(height(node.left) - height(node.right)) > 1) {
+            throw new IllegalStateException("A node is out of balance.");
+        }
+        
+        if (node.size < 1 || node.size > blockNodeCapacity) {
+            throw new IllegalStateException(
+                    "A block holds " + node.size + " elements.");
+        }
+        
+        return leftTotal + node.size + rightTotal;
+    }
+    
+    /**
+     * Invalidates the hashes of {@code node} and its ancestors. Stops at the
+     * first node already invalid, since all its ancestors are invalid too.
+     * 
+     * @param node the lowest node whose subtree changed, or {@code null}.
+     */
+    private static <E> void invalidateHashes(TreeListBlockNode<E> node) {
+        while (node != null && node.hashValid) {
+            node.hashValid = false;
+            node = node.parent;
+        }
+    }
+    
+    /**
+     * Recomputes all the invalid hashes of this list.
+     */
+    private void updateHashes() {
+        updateHashes(root);
+    }
+    
+    /**
+     * Recomputes the invalid hashes in the subtree rooted at {@code node}. A
+     * sequence {@code e_0, ..., e_(k-1)} hashes to 
+     * {@code e_0 * 31^(k-1) + ... + e_(k-1) * 31^0} in {@code int} 
+     * arithmetic, so that the hash of a concatenation {@code AB} is 
+     * {@code hash(A) * 31^|B| + hash(B)}, and the list hash code is 
+     * {@code 31^n + hash(list)}.
+     * <p>
+     * Since the list hash is easy to collide (for example, {@code [0, 31]} 
+     * and {@code [1, 0]}), the nodes also cache a 64-bit digest, which 
+     * {@link #diff(BlockTreeList)} relies on. It is the same polynomial over
+     * the element hashes scrambled with {@link #mixDigest(Object)}, in 
+     * {@code long} arithmetic and with the fixed odd base 
+     * {@link #DIGEST_BASE}. All the nodes above 
+     * {@code node} must have been pushed down.
+     * 
+     * @param node the root of the subtree.
+     */
+    private void updateHashes(TreeListBlockNode<E> node) {
+        if (node == null || node.hashValid) {
+            return;
+        }
+        
+        pushDown(node);
+        updateHashes(node.left);
+        updateHashes(node.right);
+        loadBlock(node, false);
+        
+        int blockHash = 0;
+        int reverseBlockHash = 0;
+        int blockPower = 1;
+        long blockDigest = 0L;
+        long reverseBlockDigest = 0L;
+        long blockDigestPower = 1L;
+        
+        for (int i = 0; i < node.size; i++) {
+            E element = node.get(i);
+            E reverseElement = node.get(node.size - 1 - i);
+            blockHash = 31 * blockHash + Objects.hashCode(element);
+            reverseBlockHash = 31 * reverseBlockHash 
+                             + Objects.hashCode(reverseElement);
+            blockPower *= 31;
+            blockDigest = DIGEST_BASE * blockDigest + mixDigest(element);
+            reverseBlockDigest = DIGEST_BASE * reverseBlockDigest 
+                               + mixDigest(reverseElement);
+            blockDigestPower *= DIGEST_BASE;
+        }
+        
+        int hash = 0;
+        int reverseHash = 0;
+        int power = 1;
+        
+        if (node.left != null) {
+            hash = node.left.subtreeHash;
+            power = node.left.subtreePower;
+        }
+        
+        if (node.right != null) {
+            reverseHash = node.right.reverseSubtreeHash;
+        }
+        
+        hash = hash * blockPower + blockHash;
+        reverseHash = reverseHash * blockPower + reverseBlockHash;
+        power *= blockPower;
+        
+        if (node.right != null) {
+            hash = hash * node.right.subtreePower + node.right.subtreeHash;
+            power *= node.right.subtreePower;
+        }
+        
+        if (node.left != null) {
+            reverseHash = reverseHash * node.left.subtreePower 
+                        + node.left.reverseSubtreeHash;
+        }
+        
+        long digest = 0L;
+        long reverseDigest = 0L;
+        long digestPower = 1L;
+        
+        if (node.left != null) {
+            digest = node.left.subtreeDigest;
+            digestPower = node.left.subtreeDigestPower;
+        }
+        
+        if (node.right != null) {
+            reverseDigest = node.right.reverseSubtreeDigest;
+        }
+        
+        digest = digest * blockDigestPower + blockDigest;
+        reverseDigest = reverseDigest * blockDigestPower + reverseBlockDigest;
+        digestPower *= blockDigestPower;
+        
+        if (node.right != null) {
+            digest = digest * node.right.subtreeDigestPower 
+                   + node.right.subtreeDigest;
+            digestPower *= node.right.subtreeDigestPower;
+        }
+        
+        if (node.left != null) {
+            reverseDigest = reverseDigest * node.left.subtreeDigestPower 
+                          + node.left.reverseSubtreeDigest;
+        }
+        
+        node.blockHash = blockHash;
+        node.reverseBlockHash = reverseBlockHash;
+        node.blockPower = blockPower;
+        node.subtreeHash = hash;
+        node.reverseSubtreeHash = reverseHash;
+        node.subtreePower = power;
+        node.blockDigest = blockDigest;
+        node.reverseBlockDigest = reverseBlockDigest;
+        node.blockDigestPower = blockDigestPower;
+        node.subtreeDigest = digest;
+        node.reverseSubtreeDigest = reverseDigest;
+        node.subtreeDigestPower = digestPower;
+        node.hashValid = true;
+    }
+    
+    /**
+     * Scrambles the hash code of {@code element} into a 64-bit value with 
+     * the SplitMix64 finalizer, so that elements whose hash codes differ 
+     * contribute unrelated values to the digests.
+     * 
+     * @param element the element to mix.
+     * @return the mixed element hash.
+     */
+    private static long mixDigest(Object element) {
+        long z = Objects.hashCode(element) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Returns the digest of the first {@code count} elements of this list. 
+     * All the hashes must be valid.
+     * 
+     * @param count the length of the prefix.
+     * @return the prefix digest.
+     */
+    private long prefixDigest(int count) {
+        TreeListBlockNode<E> node = root;
+        long digest = 0L;
+        
+        while (count > 0) {
+            pushDown(node);
+            
+            if (count <= node.leftCount) {
+                node = node.left;
+                continue;
+            }
+            
+            if (node.left != null) {
+                digest = digest * node.left.subtreeDigestPower 
+                       + node.left.subtreeDigest;
+            }
+            
+            count -= node.leftCount;
+            
+            if (count < node.size) {
+                loadBlock(node, false);
+                
+                for (int i = 0; i < count; i++) {
+                    digest = DIGEST_BASE * digest + mixDigest(node.get(i));
+                }
+                
+                return digest;
+            }
+            
+            digest = digest * node.blockDigestPower + node.blockDigest;
+            count -= node.size;
+            node = node.right;
+        }
+        
+        return digest;
+    }
+    
+    /**
+     * Returns the digest of the range {@code [fromIndex, toIndex)} of this 
+     * list. All the hashes must be valid.
+     * 
+     * @param fromIndex the first index of the range.
+     * @param toIndex   the index one past the last index of the range.
+     * @return the range digest.
+     */
+    private long rangeDigest(int fromIndex, int toIndex) {
+        return prefixDigest(toIndex) 
+             - prefixDigest(fromIndex) * digestPower(toIndex - fromIndex);
+    }
+    
+    /**
+     * Finds the differing positions of this list and {@code other} within 
+     * the range {@code [fromIndex, toIndex)}, which is within both the lists.
+     * 
+     * @param other     the list to compare with.
+     * @param fromIndex the first index of the range.
+     * @param toIndex   the index one past the last index of the range.
+     * @param threshold the range length below which the elements are 
+     *                  compared directly.
+     * @param ranges    the list of the differing ranges found so far.
+     */
+    private void diffRange(BlockTreeList<?> other,
+                           int fromIndex,
+                           int toIndex,
+                           int threshold,
+                           List<int[]> ranges) {
+        if (fromIndex == toIndex 
+                || rangeDigest(fromIndex, toIndex) 
+                == other.rangeDigest(fromIndex, toIndex)) {
+            return;
+        }
+        
+        if (toIndex - fromIndex <= threshold) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                if (!Objects.equals(get(i), other.get(i))) {
+                    addRange(ranges, i, i + 1);
+                }
+            }
+            
+            return;
+        }
+        
+        int middleIndex = (fromIndex + toIndex) >>> 1;
+        diffRange(other, fromIndex, middleIndex, threshold, ranges);
+        diffRange(other, middleIndex, toIndex, threshold, ranges);
     }
     
-    @Override
-    public void addFirst(E e) {
-        if (root == null) {
-            root = new TreeListBlockNode<>(blockNodeCapacity);
-            head = root;
-            tail = root;
-            root.append(e);
-            blocks = 1;
-        } else if (head.isFull()) {
-            TreeListBlockNode<E> newNode = 
-                    new TreeListBlockNode<>(blockNodeCapacity);
-            
-            newNode.append(e);
-            newNode.parent = head;
-            head.left = newNode;
-            head.prev = newNode;
-            newNode.next = head;
-            head = newNode;
-            blocks++;
-            
-            // Now restore the AVL-tree invariants:
-            updateLeftCounts(newNode, 1);
-            fixAfterInsertion(newNode);
+    /**
+     * Appends the range {@code [fromIndex, toIndex)} to {@code ranges}, 
+     * merging it with the last range if they are adjacent.
+     * 
+     * @param ranges    the sorted list of ranges.
+     * @param fromIndex the first index of the new range.
+     * @param toIndex   the index one past the last index of the new range.
+     */
+    private static void addRange(List<int[]> ranges, 
+                                 int fromIndex, 
+                                 int toIndex) {
+        if (!ranges.isEmpty() 
+                && ranges.get(ranges.size() - 1)[1] == fromIndex) {
+            ranges.get(ranges.size() - 1)[1] = toIndex;
         } else {
-            head.prepend(e);
-            updateLeftCounts(head, 1);
+            ranges.add(new int[]{ fromIndex, toIndex });
         }
-        
-        size++;
-        modificationCount++;
     }
-
-    @Override
-    public void addLast(E e) {
-        if (root == null) {
-            root = new TreeListBlockNode<>(blockNodeCapacity);
-            head = root;
-            tail = root;
-            blocks = 1;
-        } else if (tail.isFull()) {
-            TreeListBlockNode<E> newNode =
-                    new TreeListBlockNode<>(blockNodeCapacity);
-
-            newNode.append(e);
-            newNode.parent = tail;
-            tail.right = newNode;
-            tail.next = newNode;
-            newNode.prev = tail;
-            tail = newNode;
-            blocks++;
-           
-            // Now restore the AVL-tree invariant:
-            updateLeftCounts(newNode.parent, 1);
-            fixAfterInsertion(newNode);
-        } else {
-            tail.append(e);
+    
+    /**
+     * Returns {@link #DIGEST_BASE} to the power of {@code exponent} in 
+     * {@code long} arithmetic.
+     * 
+     * @param exponent the non-negative exponent.
+     * @return the power.
+     */
+    private static long digestPower(int exponent) {
+        long result = 1L;
+        long base = DIGEST_BASE;
+        
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result *= base;
+            }
+            
+            base *= base;
+            exponent >>>= 1;
         }
         
-        size++;
-        modificationCount++;
+        return result;
     }
     
     private void updateLeftCounts(TreeListBlockNode<E> startNode, int delta) {
@@ -508,7 +3035,7 @@ public class BlockTreeList<E> implements List<E>,
 
     @Override
     public Iterator<E> descendingIterator() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return new BlockTreeListIterator(true);
     }
     
     @Override
@@ -528,7 +3055,7 @@ public class BlockTreeList<E> implements List<E>,
 
     @Override
     public Iterator<E> iterator() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return new BlockTreeListIterator(false);
     }
 
     @Override
@@ -559,7 +3086,8 @@ public class BlockTreeList<E> implements List<E>,
 
     @Override
     public boolean addAll(Collection<? extends E> c) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        appendAll(c);
+        return !c.isEmpty();
     }
 
     @Override
@@ -577,9 +3105,25 @@ public class BlockTreeList<E> implements List<E>,
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    /**
+     * {@inheritDoc} Unlike 
+     * {@link #transformRange(int, int, UnaryOperator)}, the operator is 
+     * applied to every element before this method returns.
+     */
     @Override
     public void replaceAll(UnaryOperator<E> operator) {
-        List.super.replaceAll(operator); //To change body of generated methods, choose Tools | Templates.
+        Objects.requireNonNull(operator, "The operator is null.");
+        
+        for (TreeListBlockNode<E> node = leftmostNode(root); 
+                node != null; 
+                node = nextBlock(node)) {
+            loadBlock(node, true);
+            invalidateHashes(node);
+            
+            for (int i = 0; i < node.size; i++) {
+                node.set(i, operator.apply(node.get(i)));
+            }
+        }
     }
 
     @Override
@@ -598,13 +3142,15 @@ public class BlockTreeList<E> implements List<E>,
         TreeListBlockNode<E> node = root;
         
         while (true) {
+            pushDown(node);
+            
             if (index >= node.leftCount + node.size) {
                 index -= node.leftCount + node.size;
                 node = node.right;
             } else if (index < node.leftCount) {
                 node = node.left;
             } else {
-                return node.get(index - node.leftCount);
+                return loadBlock(node, false).get(index - node.leftCount);
             }
         }
     }
@@ -615,17 +3161,445 @@ public class BlockTreeList<E> implements List<E>,
         TreeListBlockNode<E> node = root;
         
         while (true) {
+            pushDown(node);
+            
             if (index >= node.leftCount + node.size) {
                 index -= node.leftCount + node.size;
                 node = node.right;
             } else if (index < node.leftCount) {
                 node = node.left;
             } else {
-                return node.set(index - node.leftCount, element);
+                invalidateHashes(node);
+                return loadBlock(node, true)
+                        .set(index - node.leftCount, element);
             }
         }
     }
 
+    /**
+     * Returns the elements at the given indices. The indices must be sorted
+     * in non-decreasing order. The whole batch is served in a single in-order
+     * pass: each block is looked up once, and nearby indices are reached by
+     * following the block links instead of descending from the root.
+     * 
+     * @param indices the sorted indices of the elements to return.
+     * @return the requested elements in the order of {@code indices}.
+     */
+    public List<E> getAll(int[] indices) {
+        checkBatchIndices(indices, size, false);
+        List<E> result = new ArrayList<>(indices.length);
+        BlockCursor cursor = new BlockCursor();
+        
+        for (int index : indices) {
+            cursor.seek(index);
+            result.add(loadBlock(cursor.node, false)
+                    .get(index - cursor.nodeStart));
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Sets {@code elements.get(i)} at index {@code indices[i]} for each 
+     * {@code i}. The indices must be sorted in non-decreasing order; if an 
+     * index appears several times, the last corresponding element wins. The 
+     * batch is served in a single pass like in {@link #getAll(int[])}.
+     * 
+     * @param indices  the sorted indices of the elements to set.
+     * @param elements the new elements.
+     */
+    public void setAll(int[] indices, List<? extends E> elements) {
+        checkBatchSize(indices, elements);
+        checkBatchIndices(indices, size, false);
+        BlockCursor cursor = new BlockCursor();
+        
+        for (int i = 0; i < indices.length; i++) {
+            cursor.seek(indices[i]);
+            invalidateHashes(cursor.node);
+            loadBlock(cursor.node, true).set(indices[i] - cursor.nodeStart, 
+                                             elements.get(i));
+        }
+    }
+    
+    /**
+     * Inserts {@code elements.get(i)} before the element that is at index 
+     * {@code indices[i]} <b>before</b> the batch, for each {@code i}. The 
+     * index {@code size()} denotes the end of the list. The indices must be 
+     * sorted in non-decreasing order; elements with equal indices are 
+     * inserted in their batch order. Each affected block is rebuilt once, and 
+     * split into evenly filled blocks if the insertions overflow it.
+     * 
+     * @param indices  the sorted insertion indices.
+     * @param elements the elements to insert.
+     */
+    public void insertAll(int[] indices, List<? extends E> elements) {
+        checkBatchSize(indices, elements);
+        checkBatchIndices(indices, size + 1, false);
+        
+        if (root == null) {
+            for (E element : elements) {
+                addLast(element);
+            }
+            
+            return;
+        }
+        
+        BlockCursor cursor = new BlockCursor();
+        int shift = 0;
+        int i = 0;
+        
+        while (i < indices.length) {
+            int index = indices[i] + shift;
+            
+            if (index == size) {
+                cursor.node = tail;
+                cursor.nodeStart = size - tail.size;
+            } else {
+                cursor.seek(index);
+            }
+            
+            TreeListBlockNode<E> node = loadBlock(cursor.node, true);
+            int nodeEnd = cursor.nodeStart + node.size;
+            int j = i;
+            
+            // All the remaining indices fall into the tail block.
+            while (j < indices.length 
+                    && (node == tail || indices[j] + shift < nodeEnd)) {
+                j++;
+            }
+            
+            int oldSize = node.size;
+            int inserted = j - i;
+            int total = oldSize + inserted;
+            Object[] merged = new Object[total];
+            int mergedIndex = 0;
+            int offset = 0;
+            
+            for (int q = i; q < j; q++) {
+                int target = indices[q] + shift - cursor.nodeStart;
+                
+                while (offset < target) {
+                    merged[mergedIndex++] = node.get(offset++);
+                }
+                
+                merged[mergedIndex++] = elements.get(q);
+            }
+            
+            while (offset < oldSize) {
+                merged[mergedIndex++] = node.get(offset++);
+            }
+            
+            int blockCount = (total + blockNodeCapacity - 1) 
+                           / blockNodeCapacity;
+            
+            TreeListBlockNode<E> last = node;
+            int from = 0;
+            
+            for (int b = 0; b < blockCount; b++) {
+                int chunkLength = total / blockCount 
+                                + (b < total % blockCount ? 1 : 0);
+                
+                if (b == 0) {
+                    fillBlock(node, merged, from, chunkLength);
+                    updateLeftCounts(node, chunkLength - oldSize);
+                    invalidateHashes(node);
+                } else {
+                    TreeListBlockNode<E> newNode = 
+                            new TreeListBlockNode<>(blockNodeCapacity);
+                    
+                    fillBlock(newNode, merged, from, chunkLength);
+                    insertNodeAfter(last, newNode);
+                    last = newNode;
+                }
+                
+                from += chunkLength;
+            }
+            
+            cursor.node = last;
+            cursor.nodeStart += total - last.size;
+            shift += inserted;
+            size += inserted;
+            i = j;
+        }
+        
+        modificationCount++;
+    }
+    
+    /**
+     * Removes the elements at the given indices, which must be sorted in 
+     * strictly increasing order and refer to the list <b>before</b> the 
+     * batch. Each affected block is compacted once; the blocks that become 
+     * empty are unlinked from the tree.
+     * 
+     * @param indices the sorted indices of the elements to remove.
+     */
+    public void removeAllAt(int[] indices) {
+        checkBatchIndices(indices, size, true);
+        BlockCursor cursor = new BlockCursor();
+        int shift = 0;
+        int i = 0;
+        
+        while (i < indices.length) {
+            cursor.seek(indices[i] - shift);
+            TreeListBlockNode<E> node = loadBlock(cursor.node, true);
+            int nodeEnd = cursor.nodeStart + node.size;
+            int j = i;
+            
+            while (j < indices.length && indices[j] - shift < nodeEnd) {
+                j++;
+            }
+            
+            int removed = j - i;
+            updateLeftCounts(node, -removed);
+            
+            if (removed == node.size) {
+                TreeListBlockNode<E> nextNode = nextBlock(node);
+                node.size = 0;
+                unlinkNode(node);
+                cursor.node = nextNode;
+            } else {
+                E[] compacted = (E[]) new Object[blockNodeCapacity];
+                int compactedSize = 0;
+                int q = i;
+                
+                for (int offset = 0; offset < node.size; offset++) {
+                    if (q < j 
+                            && indices[q] - shift - cursor.nodeStart 
+                            == offset) {
+                        q++;
+                    } else {
+                        compacted[compactedSize++] = node.get(offset);
+                    }
+                }
+                
+                node.array = compacted;
+                node.headIndex = 0;
+                node.reversed = false;
+                node.size = compactedSize;
+                invalidateHashes(node);
+            }
+            
+            shift += removed;
+            size -= removed;
+            i = j;
+        }
+        
+        modificationCount++;
+    }
+    
+    /**
+     * Reverses the range {@code [fromIndex, toIndex)} of this list. The two
+     * blocks at the range boundaries are split if needed, the tree is split 
+     * into the prefix, the range and the suffix, the root of the range 
+     * subtree is flagged as reversed, and the three trees are joined back. 
+     * The flag is pushed down lazily by the later accesses. Since the nodes 
+     * store only the left subtree counts, flipping a subtree recounts its 
+     * right spine, so the whole operation runs in 
+     * {@code O(log^2 n + blockCapacity)} time.
+     * 
+     * @param fromIndex the first index of the range.
+     * @param toIndex   the index one past the last index of the range.
+     */
+    public void reverse(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex: " + fromIndex + ", toIndex: " + toIndex + 
+                    ", Size: " + size);
+        }
+        
+        if (toIndex - fromIndex < 2) {
+            return;
+        }
+        
+        splitBlockAt(fromIndex);
+        splitBlockAt(toIndex);
+        
+        // The intermediate rebalancing of the detached trees may write to 
+        // 'root'; it is reassigned once the trees are joined back.
+        TreeListBlockNode<E> tree = root;
+        root = null;
+        
+        NodePair<E> prefixAndRest = split(tree, fromIndex);
+        NodePair<E> rangeAndSuffix = 
+                split(prefixAndRest.second, toIndex - fromIndex);
+        
+        TreeListBlockNode<E> prefix = prefixAndRest.first;
+        TreeListBlockNode<E> range  = rangeAndSuffix.first;
+        TreeListBlockNode<E> suffix = rangeAndSuffix.second;
+        
+        TreeListBlockNode<E> lastOfPrefix  = rightmostNode(prefix);
+        TreeListBlockNode<E> firstOfSuffix = leftmostNode(suffix);
+        
+        reverseSubtree(range, toIndex - fromIndex);
+        
+        // The links inside the range are swapped lazily together with the 
+        // reversal flags; only the links across the range ends need fixing.
+        TreeListBlockNode<E> firstOfRange = leftmostNode(range);
+        TreeListBlockNode<E> lastOfRange  = rightmostNode(range);
+        firstOfRange.prev = lastOfPrefix;
+        lastOfRange.next  = firstOfSuffix;
+        
+        if (lastOfPrefix != null) {
+            lastOfPrefix.next = firstOfRange;
+        }
+        
+        if (firstOfSuffix != null) {
+            firstOfSuffix.prev = lastOfRange;
+        }
+        
+        root = concat(concat(prefix, range), suffix);
+        root.parent = null;
+        head = leftmostNode(root);
+        tail = rightmostNode(root);
+        lazyUpdates = true;
+        modificationCount++;
+    }
+    
+    /**
+     * Replaces each element in the range {@code [fromIndex, toIndex)} with 
+     * the result of applying {@code operator} to it. The operator is not 
+     * applied right away: the subtrees lying completely within the range and 
+     * the blocks lying completely within it get a pending transformation 
+     * that is composed with the previous ones, and only the at most two 
+     * blocks partially covered by the range are rewritten. A pending 
+     * transformation is applied to a block when the block is read, written,
+     * split or iterated over. The operation thus runs in 
+     * {@code O(log n + blockCapacity)} time independent of the range length,
+     * but the operator may be called later, and only for the elements that 
+     * are accessed.
+     * 
+     * @param fromIndex the first index of the range.
+     * @param toIndex   the index one past the last index of the range.
+     * @param operator  the operator to apply.
+     */
+    public void transformRange(int fromIndex, 
+                               int toIndex, 
+                               UnaryOperator<E> operator) {
+        Objects.requireNonNull(operator, "The operator is null.");
+        
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex: " + fromIndex + ", toIndex: " + toIndex + 
+                    ", Size: " + size);
+        }
+        
+        if (fromIndex == toIndex) {
+            return;
+        }
+        
+        transformSubtree(root, 0, size, fromIndex, toIndex, operator);
+        
+        // The appending operations work on the end blocks directly, so that 
+        // the tags above them must not stay pending.
+        head = leftmostNode(root);
+        tail = rightmostNode(root);
+        lazyUpdates = true;
+        modificationCount++;
+    }
+    
+    /**
+     * Returns the hash code of this list as specified by 
+     * {@link List#hashCode()}. Every node caches the polynomial hashes of its
+     * block and of its subtree, which are combined bottom-up; a modification
+     * only invalidates the nodes on the path from the modified block to the 
+     * root. A call thus rehashes only the blocks modified since the previous
+     * call and the nodes above them, and runs in constant time if there are 
+     * none. Reversals keep the cached hashes valid, since every node also 
+     * caches the hashes of its contents in reverse order. A range 
+     * transformation invalidates every hash in the range, because the new 
+     * element hashes are not known before the operator is applied.
+     * 
+     * @return the hash code of this list.
+     */
+    @Override
+    public int hashCode() {
+        if (root == null) {
+            return 1;
+        }
+        
+        updateHashes();
+        return root.subtreePower + root.subtreeHash;
+    }
+    
+    /**
+     * Compares the input object with this list for equality as specified by
+     * {@link List#equals(Object)}. If the other object is a 
+     * {@code BlockTreeList} too, the cached hash codes of the two lists are 
+     * compared first, so that unequal lists are usually told apart without 
+     * scanning the elements.
+     * 
+     * @param o the object to compare with.
+     * @return {@code true} if {@code o} is a list with equal elements in the
+     *         same order.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        
+        if (!(o instanceof List)) {
+            return false;
+        }
+        
+        List<?> other = (List<?>) o;
+        
+        if (size != other.size()) {
+            return false;
+        }
+        
+        if (o instanceof BlockTreeList && hashCode() != other.hashCode()) {
+            return false;
+        }
+        
+        Iterator<?> otherIterator = other.iterator();
+        
+        for (E element : this) {
+            if (!Objects.equals(element, otherIterator.next())) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the index ranges in which this list and {@code other} differ.
+     * The lists are compared position by position: the common prefix of 
+     * length {@code min(size(), other.size())} is bisected, the halves whose
+     * range digests agree in the two lists are skipped, and short ranges are 
+     * compared element by element. If the sizes differ, the excess tail of 
+     * the longer list is reported as one more range. Each range is returned 
+     * as an array {@code {fromIndex, toIndex}}; the ranges are sorted, 
+     * disjoint and not adjacent. For {@code d} differing stretches the 
+     * method runs in {@code O(d log n (log n + blockCapacity))} time plus the 
+     * time to refresh the hashes of the modified blocks.
+     * <p>
+     * The range hashes are the 64-bit digests described in 
+     * {@link #updateHashes(TreeListBlockNode)}, not the list hash codes, so 
+     * that a difference is missed only where unequal elements have equal 
+     * hash codes, or otherwise with negligible probability.
+     * 
+     * @param other the list to compare with.
+     * @return the differing index ranges.
+     */
+    public List<int[]> diff(BlockTreeList<?> other) {
+        Objects.requireNonNull(other, "The other list is null.");
+        List<int[]> ranges = new ArrayList<>();
+        int commonSize = Math.min(size, other.size);
+        
+        updateHashes();
+        other.updateHashes();
+        int threshold = Math.max(blockNodeCapacity, other.blockNodeCapacity);
+        diffRange(other, 0, commonSize, threshold, ranges);
+        
+        if (size != other.size) {
+            addRange(ranges, commonSize, Math.max(size, other.size));
+        }
+        
+        return ranges;
+    }
+    
     @Override
     public void add(int index, E element) {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
@@ -720,6 +3694,8 @@ public class BlockTreeList<E> implements List<E>,
                                 height(node2.right)) + 1;
         
         node2.leftCount += node1.leftCount + node1.size;
+        node1.hashValid = false;
+        node2.hashValid = false;
         return node2;
     }
     
@@ -742,6 +3718,8 @@ public class BlockTreeList<E> implements List<E>,
                                 height(node2.right)) + 1;
         
         node1.leftCount -= (node2.leftCount + node2.size);
+        node1.hashValid = false;
+        node2.hashValid = false;
         return node2;
     }
         
@@ -821,6 +3799,98 @@ public class BlockTreeList<E> implements List<E>,
         }
     }
     
+    private void fixAfterDeletion(TreeListBlockNode<E> node) {
+        while (node != null) {
+            node = rebalance(node).parent;
+        }
+    }
+    
+    /**
+     * Rebalances the subtree rooted at {@code node} if needed, and returns 
+     * the root of the resulting subtree.
+     * 
+     * @param node the root of the subtree to rebalance.
+     * @return the new root of the subtree.
+     */
+    private TreeListBlockNode<E> rebalance(TreeListBlockNode<E> node) {
+        TreeListBlockNode<E> parent = node.parent;
+        TreeListBlockNode<E> subTreeRoot;
+        
+        // The rotations rearrange the children of the rotated nodes, so that
+        // their reversal flags must be pushed down first.
+        if (height(node.left) == height(node.right) + 2) {
+            pushDown(node);
+            pushDown(node.left);
+            
+            if (height(node.left.left) >= height(node.left.right)) {
+                subTreeRoot = rightRotate(node);
+            } else {
+                pushDown(node.left.right);
+                subTreeRoot = leftRightRotate(node);
+            }
+        } else if (height(node.right) == height(node.left) + 2) {
+            pushDown(node);
+            pushDown(node.right);
+            
+            if (height(node.right.right) >= height(node.right.left)) {
+                subTreeRoot = leftRotate(node);
+            } else {
+                pushDown(node.right.left);
+                subTreeRoot = rightLeftRotate(node);
+            }
+        } else {
+            node.height = Math.max(height(node.left), 
+                                   height(node.right)) + 1;
+            return node;
+        }
+        
+        replaceChild(parent, node, subTreeRoot);
+        return subTreeRoot;
+    }
+    
+    private void replaceChild(TreeListBlockNode<E> parent,
+                              TreeListBlockNode<E> oldChild,
+                              TreeListBlockNode<E> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+    
+    private static void checkBatchIndices(int[] indices, 
+                                          int bound, 
+                                          boolean strictlyIncreasing) {
+        Objects.requireNonNull(indices, "The index array is null.");
+        
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] < 0 || indices[i] >= bound) {
+                throw new IndexOutOfBoundsException(
+                        "Index: " + indices[i] + ", Bound: " + bound);
+            }
+            
+            if (i > 0 && (indices[i] < indices[i - 1] 
+                    || (strictlyIncreasing && indices[i] == indices[i - 1]))) {
+                throw new IllegalArgumentException(
+                        "The indices are not sorted at position " + i + ".");
+            }
+        }
+    }
+    
+    private static void checkBatchSize(int[] indices, 
+                                       List<?> elements) {
+        Objects.requireNonNull(indices, "The index array is null.");
+        Objects.requireNonNull(elements, "The element list is null.");
+        
+        if (indices.length != elements.size()) {
+            throw new IllegalArgumentException(
+                    "The batch has " + indices.length + " indices but " 
+                    + elements.size() + " elements.");
+        }
+    }
+    
     /**
      * Fixes the {@code requestedLoadFactor} such that it's new value is between
      * {@code MINIMUM_REQUESTED_LOAD_FACTOR} and 
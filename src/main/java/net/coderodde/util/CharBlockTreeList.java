@@ -0,0 +1,1046 @@
+package net.coderodde.util;
+
+import java.io.Serializable;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+
+/**
+ * This class implements a mutable character sequence (a rope) for text
+ * buffers. Like {@link BlockTreeList}, it is an AVL-tree of blocks, but the
+ * blocks are unboxed {@code char} arrays. Next to the number of characters in
+ * its left subtree, each node stores the number of newline characters
+ * ({@code '\n'}) in its block and in its left subtree, so that besides
+ * {@link #charAt(int)} also {@link #lineToOffset(int)} and
+ * {@link #offsetToLine(int)} run in logarithmic time. Insertions and deletions
+ * within a single block are done in place; larger edits split the tree at
+ * the edit points and join the pieces back, so that they run in
+ * {@code O(log n + blockCapacity + k)} time, where {@code k} is the number of
+ * inserted characters.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6
+ */
+public class CharBlockTreeList implements CharSequence, Serializable {
+
+    /**
+     * The minimum allowed (and possible) capacity of each block node.
+     */
+    private static final int MINIMUM_BLOCK_NODE_CAPACITY = 1;
+
+    /**
+     * The default capacity of each block node.
+     */
+    private static final int DEFAULT_BLOCK_NODE_CAPACITY = 2048;
+
+    /**
+     * The character that ends a line.
+     */
+    private static final char NEWLINE = '\n';
+
+    /**
+     * This static inner class implements the tree nodes holding the
+     * character blocks.
+     */
+    private static final class Node implements Serializable {
+
+        /**
+         * The characters of this block. Only the first {@code length}
+         * components are in use.
+         */
+        char[] chars;
+
+        /**
+         * The number of characters in this block.
+         */
+        int length;
+
+        /**
+         * The number of newline characters in this block.
+         */
+        int newlines;
+
+        /**
+         * The number of characters in the left subtree.
+         */
+        int leftCount;
+
+        /**
+         * The number of newline characters in the left subtree.
+         */
+        int leftNewlines;
+
+        /**
+         * The height of this node. Leaves have height of zero (0).
+         */
+        int height;
+
+        /**
+         * The left child node.
+         */
+        Node left;
+
+        /**
+         * The right child node.
+         */
+        Node right;
+
+        Node(int capacity) {
+            this.chars = new char[capacity];
+        }
+    }
+
+    /**
+     * This inner class implements the views returned by
+     * {@link CharBlockTreeList#subSequence(int, int)}. A view fails fast with
+     * a {@link ConcurrentModificationException} once the backing sequence is
+     * modified.
+     */
+    private final class SubSequence implements CharSequence {
+
+        /**
+         * The offset of the first character of this view in the backing
+         * sequence.
+         */
+        private final int fromIndex;
+
+        /**
+         * The offset one past the last character of this view in the backing
+         * sequence.
+         */
+        private final int toIndex;
+
+        /**
+         * The modification count of the backing sequence at the creation of
+         * this view.
+         */
+        private final int expectedModificationCount;
+
+        SubSequence(int fromIndex, int toIndex) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.expectedModificationCount = modificationCount;
+        }
+
+        @Override
+        public int length() {
+            checkForComodification();
+            return toIndex - fromIndex;
+        }
+
+        @Override
+        public char charAt(int index) {
+            checkForComodification();
+
+            if (index < 0 || index >= toIndex - fromIndex) {
+                throw new IndexOutOfBoundsException(
+                        "Index: " + index + ", Length: "
+                        + (toIndex - fromIndex));
+            }
+
+            return CharBlockTreeList.this.charAt(fromIndex + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            checkForComodification();
+            checkRange(start, end, toIndex - fromIndex);
+            return new SubSequence(fromIndex + start, fromIndex + end);
+        }
+
+        @Override
+        public String toString() {
+            checkForComodification();
+            char[] result = new char[toIndex - fromIndex];
+            getChars(fromIndex, toIndex, result, 0);
+            return new String(result);
+        }
+
+        /**
+         * Returns the sequence backing this view.
+         *
+         * @return the backing sequence.
+         */
+        CharBlockTreeList getBackingSequence() {
+            return CharBlockTreeList.this;
+        }
+
+        private void checkForComodification() {
+            if (modificationCount != expectedModificationCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * The root node of the tree.
+     */
+    private Node root;
+
+    /**
+     * The number of characters in this sequence.
+     */
+    private int length;
+
+    /**
+     * The number of newline characters in this sequence.
+     */
+    private int newlines;
+
+    /**
+     * The capacity of all the block nodes.
+     */
+    private final int blockNodeCapacity;
+
+    /**
+     * Counts the modifications made to this sequence.
+     */
+    private transient int modificationCount;
+
+    /**
+     * Constructs an empty sequence with default block capacity.
+     */
+    public CharBlockTreeList() {
+        this(DEFAULT_BLOCK_NODE_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty sequence whose block nodes have capacity
+     * {@code requestedBlockNodeCapacity}.
+     *
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     */
+    public CharBlockTreeList(int requestedBlockNodeCapacity) {
+        this.blockNodeCapacity = Math.max(requestedBlockNodeCapacity,
+                                          MINIMUM_BLOCK_NODE_CAPACITY);
+    }
+
+    /**
+     * Constructs a sequence with default block capacity containing the input
+     * text.
+     *
+     * @param text the initial text.
+     */
+    public CharBlockTreeList(CharSequence text) {
+        this(text, DEFAULT_BLOCK_NODE_CAPACITY);
+    }
+
+    /**
+     * Constructs a sequence containing the input text whose block nodes have
+     * capacity {@code requestedBlockNodeCapacity}. The text is split into
+     * full blocks which are built into a balanced tree in linear time.
+     *
+     * @param text                       the initial text.
+     * @param requestedBlockNodeCapacity the requested block node capacity.
+     */
+    public CharBlockTreeList(CharSequence text,
+                             int requestedBlockNodeCapacity) {
+        this(requestedBlockNodeCapacity);
+        Objects.requireNonNull(text, "The input text is null.");
+        root = buildTree(text, 0, text.length());
+        length = text.length();
+        newlines = countNewlines(text, 0, text.length());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Length: " + length);
+        }
+
+        Node node = root;
+
+        while (true) {
+            if (index < node.leftCount) {
+                node = node.left;
+            } else if (index < node.leftCount + node.length) {
+                return node.chars[index - node.leftCount];
+            } else {
+                index -= node.leftCount + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns a view of the range {@code [start, end)} of this sequence. The
+     * view is not copied, and it fails fast once this sequence is modified.
+     *
+     * @param start the first index of the range.
+     * @param end   the index one past the last index of the range.
+     * @return the view of the range.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        checkRange(start, end, length);
+        return new SubSequence(start, end);
+    }
+
+    /**
+     * Copies the characters in {@code [srcBegin, srcEnd)} into {@code dst}
+     * starting from {@code dstBegin}, one block at a time.
+     *
+     * @param srcBegin the first index of the range to copy.
+     * @param srcEnd   the index one past the last index of the range.
+     * @param dst      the destination array.
+     * @param dstBegin the index in {@code dst} of the first copied character.
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        checkRange(srcBegin, srcEnd, length);
+        copyChars(root, 0, srcBegin, srcEnd, dst, dstBegin);
+    }
+
+    @Override
+    public String toString() {
+        char[] result = new char[length];
+        copyChars(root, 0, 0, length, result, 0);
+        return new String(result);
+    }
+
+    /**
+     * Returns the number of lines in this sequence, which is one more than
+     * the number of newline characters.
+     *
+     * @return the number of lines.
+     */
+    public int getLineCount() {
+        return newlines + 1;
+    }
+
+    /**
+     * Returns the offset of the first character of the line {@code line}.
+     * The lines are numbered from zero.
+     *
+     * @param line the line number.
+     * @return the offset at which the line begins.
+     */
+    public int lineToOffset(int line) {
+        if (line < 0 || line > newlines) {
+            throw new IndexOutOfBoundsException(
+                    "Line: " + line + ", Line count: " + (newlines + 1));
+        }
+
+        if (line == 0) {
+            return 0;
+        }
+
+        // Find the line-th newline character; the line begins right after it.
+        Node node = root;
+        int offset = 0;
+
+        while (true) {
+            if (line <= node.leftNewlines) {
+                node = node.left;
+            } else if (line <= node.leftNewlines + node.newlines) {
+                line -= node.leftNewlines;
+                offset += node.leftCount;
+
+                for (int i = 0; ; i++) {
+                    if (node.chars[i] == NEWLINE && --line == 0) {
+                        return offset + i + 1;
+                    }
+                }
+            } else {
+                line -= node.leftNewlines + node.newlines;
+                offset += node.leftCount + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the line containing the character at the offset
+     * {@code offset}, which is the number of newline characters preceding
+     * it. The offset {@code length()} is accepted and belongs to the last
+     * line.
+     *
+     * @param offset the offset.
+     * @return the line number.
+     */
+    public int offsetToLine(int offset) {
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException(
+                    "Offset: " + offset + ", Length: " + length);
+        }
+
+        Node node = root;
+        int line = 0;
+
+        while (node != null) {
+            if (offset < node.leftCount) {
+                node = node.left;
+            } else if (offset <= node.leftCount + node.length) {
+                line += node.leftNewlines;
+                return line + countNewlines(node.chars,
+                                            0,
+                                            offset - node.leftCount);
+            } else {
+                line += node.leftNewlines + node.newlines;
+                offset -= node.leftCount + node.length;
+                node = node.right;
+            }
+        }
+
+        return line;
+    }
+
+    /**
+     * Appends the input text to the end of this sequence.
+     *
+     * @param text the text to append.
+     */
+    public void append(CharSequence text) {
+        insert(length, text);
+    }
+
+    /**
+     * Inserts the input text before the character at the offset
+     * {@code offset}. If the text fits into the block containing the offset,
+     * it is inserted in place. Otherwise the tree is split at the offset, the
+     * text is built into a balanced tree of full blocks, and the three trees
+     * are joined back.
+     *
+     * @param offset the insertion offset.
+     * @param text   the text to insert.
+     */
+    public void insert(int offset, CharSequence text) {
+        Objects.requireNonNull(text, "The input text is null.");
+
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException(
+                    "Offset: " + offset + ", Length: " + length);
+        }
+
+        int textLength = text.length();
+
+        if (textLength == 0) {
+            return;
+        }
+
+        if (isBackedByThis(text)) {
+            // The text reads the tree that is about to be modified, so take a
+            // snapshot of it first.
+            text = text.toString();
+        }
+
+        int textNewlines = countNewlines(text, 0, textLength);
+        Node node = findBlock(offset);
+
+        if (node != null && node.length + textLength <= blockNodeCapacity) {
+            int indexInBlock = updateCountsOnPath(offset,
+                                                  textLength,
+                                                  textNewlines);
+
+            System.arraycopy(node.chars,
+                             indexInBlock,
+                             node.chars,
+                             indexInBlock + textLength,
+                             node.length - indexInBlock);
+
+            for (int i = 0; i < textLength; i++) {
+                node.chars[indexInBlock + i] = text.charAt(i);
+            }
+
+            node.length += textLength;
+            node.newlines += textNewlines;
+        } else {
+            Node[] parts = split(root, offset);
+            Node middle = buildTree(text, 0, textLength);
+            root = concat(concat(parts[0], middle), parts[1]);
+        }
+
+        length += textLength;
+        newlines += textNewlines;
+        modificationCount++;
+    }
+
+    /**
+     * Returns {@code true} if the input text is this sequence or a view of
+     * it.
+     *
+     * @param text the text to check.
+     * @return {@code true} if the text reads this sequence.
+     */
+    private boolean isBackedByThis(CharSequence text) {
+        return text == this
+                || text instanceof SubSequence
+                && ((SubSequence) text).getBackingSequence() == this;
+    }
+
+    /**
+     * Deletes the characters in the range {@code [fromIndex, toIndex)}. A
+     * range within a single block that does not empty the block is deleted in
+     * place. Otherwise the tree is split at both ends of the range and the
+     * outer trees are joined, merging the two blocks at the seam if they fit
+     * into one.
+     *
+     * @param fromIndex the first index of the range.
+     * @param toIndex   the index one past the last index of the range.
+     */
+    public void delete(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex, length);
+
+        if (fromIndex == toIndex) {
+            return;
+        }
+
+        int deletedLength = toIndex - fromIndex;
+        Node node = findBlock(fromIndex);
+        int blockStart = fromIndex - indexInBlock(fromIndex);
+
+        if (node.length > deletedLength
+                && fromIndex - blockStart < node.length
+                && toIndex <= blockStart + node.length) {
+            int from = fromIndex - blockStart;
+            int deletedNewlines = countNewlines(node.chars,
+                                                from,
+                                                from + deletedLength);
+
+            updateCountsOnPath(fromIndex, -deletedLength, -deletedNewlines);
+            System.arraycopy(node.chars,
+                             from + deletedLength,
+                             node.chars,
+                             from,
+                             node.length - from - deletedLength);
+
+            node.length -= deletedLength;
+            node.newlines -= deletedNewlines;
+            newlines -= deletedNewlines;
+        } else {
+            Node[] prefixAndRest = split(root, fromIndex);
+            Node[] rangeAndSuffix = split(prefixAndRest[1], deletedLength);
+            newlines -= subtreeNewlines(rangeAndSuffix[0]);
+            root = concat(prefixAndRest[0], rangeAndSuffix[1]);
+        }
+
+        length -= deletedLength;
+        modificationCount++;
+    }
+
+    /**
+     * Returns the block into which a character may be inserted at the offset
+     * {@code offset}: the block containing the character at the offset, or
+     * the block ending at the offset if it is in a right subtree. Returns
+     * {@code null} if this sequence is empty.
+     *
+     * @param offset the offset.
+     * @return the block node.
+     */
+    private Node findBlock(int offset) {
+        Node node = root;
+
+        while (node != null) {
+            if (offset < node.leftCount) {
+                node = node.left;
+            } else if (offset <= node.leftCount + node.length) {
+                return node;
+            } else {
+                offset -= node.leftCount + node.length;
+                node = node.right;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the index of the offset {@code offset} within the block
+     * returned by {@link #findBlock(int)}.
+     *
+     * @param offset the offset.
+     * @return the index within the block.
+     */
+    private int indexInBlock(int offset) {
+        Node node = root;
+
+        while (true) {
+            if (offset < node.leftCount) {
+                node = node.left;
+            } else if (offset <= node.leftCount + node.length) {
+                return offset - node.leftCount;
+            } else {
+                offset -= node.leftCount + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Descends to the block returned by {@link #findBlock(int)}, adding the
+     * deltas to the left subtree counts of the nodes that are left of the
+     * path.
+     *
+     * @param offset          the offset.
+     * @param lengthDelta     the change of the length of the block.
+     * @param newlinesDelta   the change of the newline count of the block.
+     * @return the index of the offset within the block.
+     */
+    private int updateCountsOnPath(int offset,
+                                   int lengthDelta,
+                                   int newlinesDelta) {
+        Node node = root;
+
+        while (true) {
+            if (offset < node.leftCount) {
+                node.leftCount += lengthDelta;
+                node.leftNewlines += newlinesDelta;
+                node = node.left;
+            } else if (offset <= node.leftCount + node.length) {
+                return offset - node.leftCount;
+            } else {
+                offset -= node.leftCount + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Builds a balanced tree of full blocks out of the range
+     * {@code [fromIndex, toIndex)} of {@code text}.
+     *
+     * @param text      the source text.
+     * @param fromIndex the first index of the range.
+     * @param toIndex   the index one past the last index of the range.
+     * @return the root of the tree, or {@code null} if the range is empty.
+     */
+    private Node buildTree(CharSequence text, int fromIndex, int toIndex) {
+        int blockCount = (toIndex - fromIndex + blockNodeCapacity - 1)
+                       / blockNodeCapacity;
+
+        return buildTree(text, fromIndex, toIndex, 0, blockCount);
+    }
+
+    /**
+     * Builds a balanced tree out of the blocks {@code fromBlock, ...,
+     * toBlock - 1} of the range starting at {@code textFrom} in {@code text}.
+     *
+     * @param text      the source text.
+     * @param textFrom  the index of the first character of block zero.
+     * @param textTo    the index one past the last character of the range.
+     * @param fromBlock the first block.
+     * @param toBlock   the block one past the last block.
+     * @return the root of the tree.
+     */
+    private Node buildTree(CharSequence text,
+                           int textFrom,
+                           int textTo,
+                           int fromBlock,
+                           int toBlock) {
+        if (fromBlock >= toBlock) {
+            return null;
+        }
+
+        int middleBlock = (fromBlock + toBlock) >>> 1;
+        int blockStart = textFrom + middleBlock * blockNodeCapacity;
+        int blockEnd = Math.min(textTo, blockStart + blockNodeCapacity);
+        Node node = new Node(blockNodeCapacity);
+
+        for (int i = blockStart; i < blockEnd; i++) {
+            node.chars[i - blockStart] = text.charAt(i);
+        }
+
+        node.length = blockEnd - blockStart;
+        node.newlines = countNewlines(node.chars, 0, node.length);
+        node.left = buildTree(text, textFrom, textTo, fromBlock, middleBlock);
+        node.right = buildTree(text, textFrom, textTo, middleBlock + 1, toBlock);
+        node.leftCount = (middleBlock - fromBlock) * blockNodeCapacity;
+        node.leftNewlines = subtreeNewlines(node.left);
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        return node;
+    }
+
+    /**
+     * Splits the tree {@code node} into two trees, the first one containing
+     * the first {@code offset} characters. The block containing the split
+     * point is split in two if needed.
+     *
+     * @param node   the tree to split.
+     * @param offset the number of characters going to the first tree.
+     * @return the two trees.
+     */
+    private Node[] split(Node node, int offset) {
+        Node[] result = new Node[2];
+
+        if (node == null) {
+            return result;
+        }
+
+        Node leftTree = node.left;
+        Node rightTree = node.right;
+        int leftCount = node.leftCount;
+        int leftNewlines = node.leftNewlines;
+        node.left = null;
+        node.right = null;
+
+        if (offset < leftCount) {
+            Node[] pair = split(leftTree, offset);
+            result[0] = pair[0];
+            result[1] = join(pair[1],
+                             leftCount - offset,
+                             leftNewlines - subtreeNewlines(pair[0]),
+                             node,
+                             rightTree);
+            return result;
+        }
+
+        offset -= leftCount;
+
+        if (offset == 0) {
+            result[0] = leftTree;
+            result[1] = join(null, 0, 0, node, rightTree);
+        } else if (offset < node.length) {
+            Node tailNode = new Node(blockNodeCapacity);
+            tailNode.length = node.length - offset;
+            System.arraycopy(node.chars, offset,
+                             tailNode.chars, 0,
+                             tailNode.length);
+
+            tailNode.newlines = countNewlines(tailNode.chars,
+                                              0,
+                                              tailNode.length);
+            node.length = offset;
+            node.newlines -= tailNode.newlines;
+            result[0] = join(leftTree, leftCount, leftNewlines, node, null);
+            result[1] = join(null, 0, 0, tailNode, rightTree);
+        } else {
+            Node[] pair = split(rightTree, offset - node.length);
+            result[0] = join(leftTree, leftCount, leftNewlines, node, pair[0]);
+            result[1] = pair[1];
+        }
+
+        return result;
+    }
+
+    /**
+     * Concatenates two trees. If the last block of the first tree and the
+     * first block of the second tree fit together into one block, they are
+     * merged, so that repeated edits at the same place do not leave small
+     * blocks behind.
+     *
+     * @param tree1 the first tree.
+     * @param tree2 the second tree.
+     * @return the concatenated tree.
+     */
+    private Node concat(Node tree1, Node tree2) {
+        if (tree1 == null) {
+            return tree2;
+        }
+
+        if (tree2 == null) {
+            return tree1;
+        }
+
+        Node[] restAndLast = splitLast(tree1);
+        Node[] firstAndRest = splitFirst(tree2);
+        Node last = restAndLast[1];
+        Node first = firstAndRest[0];
+        Node rest1 = restAndLast[0];
+        Node rest2 = firstAndRest[1];
+
+        if (last.length + first.length <= blockNodeCapacity) {
+            System.arraycopy(first.chars, 0,
+                             last.chars, last.length,
+                             first.length);
+
+            last.length += first.length;
+            last.newlines += first.newlines;
+        } else {
+            rest2 = join(null, 0, 0, first, rest2);
+        }
+
+        return join(rest1,
+                    subtreeLength(rest1),
+                    subtreeNewlines(rest1),
+                    last,
+                    rest2);
+    }
+
+    /**
+     * Removes the last node of the tree {@code node}.
+     *
+     * @param node the tree.
+     * @return the remaining tree and the detached last node.
+     */
+    private Node[] splitLast(Node node) {
+        Node leftTree = node.left;
+        Node rightTree = node.right;
+        node.left = null;
+        node.right = null;
+
+        if (rightTree == null) {
+            node.leftCount = 0;
+            node.leftNewlines = 0;
+            node.height = 0;
+            return new Node[]{ leftTree, node };
+        }
+
+        Node[] result = splitLast(rightTree);
+        result[0] = join(leftTree,
+                         node.leftCount,
+                         node.leftNewlines,
+                         node,
+                         result[0]);
+        return result;
+    }
+
+    /**
+     * Removes the first node of the tree {@code node}.
+     *
+     * @param node the tree.
+     * @return the detached first node and the remaining tree.
+     */
+    private Node[] splitFirst(Node node) {
+        Node leftTree = node.left;
+        Node rightTree = node.right;
+        node.left = null;
+        node.right = null;
+
+        if (leftTree == null) {
+            node.height = 0;
+            return new Node[]{ node, rightTree };
+        }
+
+        Node[] result = splitFirst(leftTree);
+        result[1] = join(result[1],
+                         node.leftCount - result[0].length,
+                         node.leftNewlines - result[0].newlines,
+                         node,
+                         rightTree);
+        return result;
+    }
+
+    /**
+     * Joins the trees {@code tree1} and {@code tree2} using the detached node
+     * {@code middle}, such that the in-order sequence of the result is the
+     * one of {@code tree1}, {@code middle} and {@code tree2}. The taller tree
+     * is descended along its inner spine to the height of the other one, and
+     * the spine is rebalanced on the way back up.
+     *
+     * @param tree1          the tree holding the first characters.
+     * @param tree1Length    the number of characters in {@code tree1}.
+     * @param tree1Newlines  the number of newlines in {@code tree1}.
+     * @param middle         the middle node.
+     * @param tree2          the tree holding the last characters.
+     * @return the joined tree.
+     */
+    private static Node join(Node tree1,
+                             int tree1Length,
+                             int tree1Newlines,
+                             Node middle,
+                             Node tree2) {
+        if (height(tree1) > height(tree2) + 1) {
+            tree1.right = join(tree1.right,
+                               tree1Length - tree1.leftCount - tree1.length,
+                               tree1Newlines - tree1.leftNewlines
+                                             - tree1.newlines,
+                               middle,
+                               tree2);
+            return rebalance(tree1);
+        }
+
+        if (height(tree2) > height(tree1) + 1) {
+            tree2.left = join(tree1,
+                              tree1Length,
+                              tree1Newlines,
+                              middle,
+                              tree2.left);
+
+            tree2.leftCount += tree1Length + middle.length;
+            tree2.leftNewlines += tree1Newlines + middle.newlines;
+            return rebalance(tree2);
+        }
+
+        middle.left = tree1;
+        middle.right = tree2;
+        middle.leftCount = tree1Length;
+        middle.leftNewlines = tree1Newlines;
+        middle.height = Math.max(height(tree1), height(tree2)) + 1;
+        return middle;
+    }
+
+    /**
+     * Rebalances the subtree rooted at {@code node} whose child subtrees
+     * differ in height by at most two, and returns its new root.
+     *
+     * @param node the root of the subtree.
+     * @return the new root of the subtree.
+     */
+    private static Node rebalance(Node node) {
+        if (height(node.left) == height(node.right) + 2) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = leftRotate(node.left);
+            }
+
+            return rightRotate(node);
+        }
+
+        if (height(node.right) == height(node.left) + 2) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rightRotate(node.right);
+            }
+
+            return leftRotate(node);
+        }
+
+        updateHeight(node);
+        return node;
+    }
+
+    private static Node leftRotate(Node node1) {
+        Node node2 = node1.right;
+        node1.right = node2.left;
+        node2.left = node1;
+        node2.leftCount += node1.leftCount + node1.length;
+        node2.leftNewlines += node1.leftNewlines + node1.newlines;
+        updateHeight(node1);
+        updateHeight(node2);
+        return node2;
+    }
+
+    private static Node rightRotate(Node node1) {
+        Node node2 = node1.left;
+        node1.left = node2.right;
+        node2.right = node1;
+        node1.leftCount -= node2.leftCount + node2.length;
+        node1.leftNewlines -= node2.leftNewlines + node2.newlines;
+        updateHeight(node1);
+        updateHeight(node2);
+        return node2;
+    }
+
+    private static void updateHeight(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : -1;
+    }
+
+    /**
+     * Returns the number of characters in the subtree rooted at
+     * {@code node} by walking its right spine.
+     *
+     * @param node the root of the subtree.
+     * @return the number of characters.
+     */
+    private static int subtreeLength(Node node) {
+        int count = 0;
+
+        for (; node != null; node = node.right) {
+            count += node.leftCount + node.length;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of newlines in the subtree rooted at {@code node}
+     * by walking its right spine.
+     *
+     * @param node the root of the subtree.
+     * @return the number of newlines.
+     */
+    private static int subtreeNewlines(Node node) {
+        int count = 0;
+
+        for (; node != null; node = node.right) {
+            count += node.leftNewlines + node.newlines;
+        }
+
+        return count;
+    }
+
+    /**
+     * Copies the characters of the subtree rooted at {@code node}, which
+     * begins at the offset {@code nodeStart}, that lie within
+     * {@code [fromIndex, toIndex)} to {@code dst}.
+     *
+     * @param node      the root of the subtree.
+     * @param nodeStart the offset of the first character of the subtree.
+     * @param fromIndex the first index of the range to copy.
+     * @param toIndex   the index one past the last index of the range.
+     * @param dst       the destination array.
+     * @param dstBegin  the index in {@code dst} of the character at
+     *                  {@code fromIndex}.
+     */
+    private static void copyChars(Node node,
+                                  int nodeStart,
+                                  int fromIndex,
+                                  int toIndex,
+                                  char[] dst,
+                                  int dstBegin) {
+        while (node != null && fromIndex < toIndex) {
+            int blockStart = nodeStart + node.leftCount;
+
+            if (fromIndex < blockStart) {
+                copyChars(node.left,
+                          nodeStart,
+                          fromIndex,
+                          Math.min(toIndex, blockStart),
+                          dst,
+                          dstBegin);
+            }
+
+            int from = Math.max(fromIndex, blockStart);
+            int to = Math.min(toIndex, blockStart + node.length);
+
+            if (from < to) {
+                System.arraycopy(node.chars, from - blockStart,
+                                 dst, dstBegin + from - fromIndex,
+                                 to - from);
+            }
+
+            // Continue with the right subtree iteratively.
+            int rightStart = blockStart + node.length;
+
+            if (fromIndex < rightStart) {
+                dstBegin += rightStart - fromIndex;
+                fromIndex = rightStart;
+            }
+
+            nodeStart = rightStart;
+            node = node.right;
+        }
+    }
+
+    private static int countNewlines(char[] chars,
+                                     int fromIndex,
+                                     int toIndex) {
+        int count = 0;
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (chars[i] == NEWLINE) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static int countNewlines(CharSequence text,
+                                     int fromIndex,
+                                     int toIndex) {
+        int count = 0;
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (text.charAt(i) == NEWLINE) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static void checkRange(int fromIndex, int toIndex, int length) {
+        if (fromIndex < 0 || toIndex > length || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex: " + fromIndex + ", toIndex: " + toIndex +
+                    ", Length: " + length);
+        }
+    }
+}
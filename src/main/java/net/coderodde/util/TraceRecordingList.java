@@ -0,0 +1,446 @@
+package net.coderodde.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class wraps a {@link BlockTreeList} and records the {@code addFirst},
+ * {@code addLast}, {@code get} and {@code set} operations made through it to
+ * a compact binary trace file, which can be replayed with
+ * {@link TraceReplay}. Only the operation types, the indices and the timing
+ * are recorded, not the elements.
+ * <p>
+ * The wrapper is itself a {@link List} and a {@link Deque} delegating every
+ * operation to the wrapped list, so that recording can be switched on without
+ * changing the code using the list. The aliases of the recorded operations
+ * are recorded as them: {@code offerFirst} and {@code push} as
+ * {@code addFirst}, and {@code add}, {@code offer}, {@code offerLast} and
+ * each element of {@code addAll(Collection)} as {@code addLast}. The other
+ * operations are passed through unrecorded; if they change the size of the
+ * list, the indices of the later operations may not be valid on replay.
+ * <p>
+ * The trace file begins with the magic number {@link #MAGIC}, the format
+ * version byte and the size of the list at the time the recording started.
+ * Each operation is then stored as the operation code byte, the index for
+ * {@code get} and {@code set}, and the number of nanoseconds elapsed since
+ * the previous operation. The sizes, indices and time deltas are written as
+ * unsigned variable-length integers of seven bits per byte, so that a typical
+ * operation takes three to six bytes.
+ *
+ * @param <E> the element type.
+ * @author Rodion "rodde" Efremov
+ * @version 1.6
+ */
+public class TraceRecordingList<E> implements List<E>, Deque<E>, Closeable {
+
+    /**
+     * The magic number beginning every trace file.
+     */
+    static final int MAGIC = 0x42544C54;
+
+    /**
+     * The version of the trace file format.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * The operation code of {@code addFirst}.
+     */
+    static final byte ADD_FIRST = 0;
+
+    /**
+     * The operation code of {@code addLast}.
+     */
+    static final byte ADD_LAST = 1;
+
+    /**
+     * The operation code of {@code get}.
+     */
+    static final byte GET = 2;
+
+    /**
+     * The operation code of {@code set}.
+     */
+    static final byte SET = 3;
+
+    /**
+     * The recorded list.
+     */
+    private final BlockTreeList<E> list;
+
+    /**
+     * The output stream of the trace file.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The time stamp of the previous recorded operation.
+     */
+    private long previousNanos;
+
+    /**
+     * The number of the operations recorded so far.
+     */
+    private long operationCount;
+
+    /**
+     * Starts recording the operations on {@code list} to the file
+     * {@code traceFile}, which is created or truncated.
+     *
+     * @param list      the list to record.
+     * @param traceFile the path of the trace file.
+     * @throws IOException if the trace file cannot be written.
+     */
+    public TraceRecordingList(BlockTreeList<E> list, Path traceFile)
+    throws IOException {
+        this.list = Objects.requireNonNull(list, "The input list is null.");
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(
+                        Files.newOutputStream(traceFile)));
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(list.size());
+        this.previousNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the recorded list. The operations made directly on it are not
+     * recorded.
+     *
+     * @return the recorded list.
+     */
+    public BlockTreeList<E> getList() {
+        return list;
+    }
+
+    /**
+     * Returns the number of the operations recorded so far.
+     *
+     * @return the number of operations.
+     */
+    public long getOperationCount() {
+        return operationCount;
+    }
+
+    @Override
+    public void addFirst(E e) {
+        list.addFirst(e);
+        record(ADD_FIRST, -1);
+    }
+
+    @Override
+    public void addLast(E e) {
+        list.addLast(e);
+        record(ADD_LAST, -1);
+    }
+
+    @Override
+    public E get(int index) {
+        E element = list.get(index);
+        record(GET, index);
+        return element;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E oldElement = list.set(index, element);
+        record(SET, index);
+        return oldElement;
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean add(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        int count = c.size();
+        boolean changed = list.addAll(c);
+
+        for (int i = 0; i < count; i++) {
+            record(ADD_LAST, -1);
+        }
+
+        return changed;
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return list.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return list.contains(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return list.iterator();
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return list.descendingIterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return list.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return list.toArray(a);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return list.remove(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return list.containsAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        return list.addAll(index, c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return list.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return list.retainAll(c);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        list.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        list.sort(c);
+    }
+
+    @Override
+    public void clear() {
+        list.clear();
+    }
+
+    @Override
+    public void add(int index, E element) {
+        list.add(index, element);
+    }
+
+    @Override
+    public E remove(int index) {
+        return list.remove(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return list.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return list.lastIndexOf(o);
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return list.listIterator();
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        return list.listIterator(index);
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        return list.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public E removeFirst() {
+        return list.removeFirst();
+    }
+
+    @Override
+    public E removeLast() {
+        return list.removeLast();
+    }
+
+    @Override
+    public E pollFirst() {
+        return list.pollFirst();
+    }
+
+    @Override
+    public E pollLast() {
+        return list.pollLast();
+    }
+
+    @Override
+    public E getFirst() {
+        return list.getFirst();
+    }
+
+    @Override
+    public E getLast() {
+        return list.getLast();
+    }
+
+    @Override
+    public E peekFirst() {
+        return list.peekFirst();
+    }
+
+    @Override
+    public E peekLast() {
+        return list.peekLast();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        return list.removeFirstOccurrence(o);
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        return list.removeLastOccurrence(o);
+    }
+
+    @Override
+    public E remove() {
+        return list.remove();
+    }
+
+    @Override
+    public E poll() {
+        return list.poll();
+    }
+
+    @Override
+    public E element() {
+        return list.element();
+    }
+
+    @Override
+    public E peek() {
+        return list.peek();
+    }
+
+    @Override
+    public E pop() {
+        return list.pop();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || list.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return list.hashCode();
+    }
+
+    /**
+     * Flushes and closes the trace file.
+     *
+     * @throws IOException if the trace file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Appends an operation to the trace. The operations are recorded only
+     * after they succeed, so that a trace replays without errors.
+     *
+     * @param operation the operation code.
+     * @param index     the index, or a negative value if the operation has
+     *                  none.
+     */
+    private void record(byte operation, int index) {
+        long now = System.nanoTime();
+
+        try {
+            out.writeByte(operation);
+
+            if (index >= 0) {
+                writeVarLong(index);
+            }
+
+            writeVarLong(Math.max(0L, now - previousNanos));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        previousNanos = now;
+        operationCount++;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,480 @@
+package net.coderodde.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * This class replays the traces recorded by {@link TraceRecordingList}
+ * against {@link BlockTreeList}s with different block capacities and against
+ * other list implementations, and reports the throughput and a latency
+ * histogram of each run. The load factor is not varied, since it does not
+ * affect the traced operations. After each replay against a
+ * {@code BlockTreeList} its structural invariants are checked, so that tuning
+ * runs also catch corruption.
+ * <p>
+ * Usage: {@code java net.coderodde.util.TraceReplay TRACE_FILE
+ * [BLOCK_CAPACITY ...]}
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.6
+ */
+public final class TraceReplay {
+
+    /**
+     * The default block capacities to replay against.
+     */
+    private static final int[] DEFAULT_BLOCK_CAPACITIES = {
+        16, 25, 64, 256, 1024
+    };
+
+    /**
+     * The number of untimed replays run before the timed one, so that the
+     * timed replay runs compiled code.
+     */
+    private static final int WARMUP_ROUNDS = 1;
+
+    /**
+     * The number of latency histogram buckets. Bucket {@code b > 0} counts the
+     * operations that took {@code [2^b, 2^(b + 1))} nanoseconds; bucket zero
+     * counts the operations that took less than two nanoseconds.
+     */
+    private static final int HISTOGRAM_BUCKETS = 64;
+
+    /**
+     * This static inner class holds a trace read into memory.
+     */
+    public static final class Trace {
+
+        /**
+         * The size of the list when the recording started.
+         */
+        private final int initialSize;
+
+        /**
+         * The operation codes.
+         */
+        private final byte[] operations;
+
+        /**
+         * The indices of the operations, or zero for the operations without
+         * one.
+         */
+        private final int[] indices;
+
+        /**
+         * The number of operations in this trace.
+         */
+        private final int operationCount;
+
+        /**
+         * The recorded duration of the traced workload.
+         */
+        private final long recordedNanos;
+
+        private Trace(int initialSize,
+                      byte[] operations,
+                      int[] indices,
+                      int operationCount,
+                      long recordedNanos) {
+            this.initialSize = initialSize;
+            this.operations = operations;
+            this.indices = indices;
+            this.operationCount = operationCount;
+            this.recordedNanos = recordedNanos;
+        }
+
+        public int getInitialSize() {
+            return initialSize;
+        }
+
+        public int getOperationCount() {
+            return operationCount;
+        }
+
+        public long getRecordedNanos() {
+            return recordedNanos;
+        }
+    }
+
+    /**
+     * This static inner class holds the measurements of one replay.
+     */
+    public static final class Result {
+
+        /**
+         * The number of replayed operations.
+         */
+        private final int operationCount;
+
+        /**
+         * The total time of the replay.
+         */
+        private final long elapsedNanos;
+
+        /**
+         * The latency histogram; see {@link #HISTOGRAM_BUCKETS}.
+         */
+        private final long[] histogram;
+
+        /**
+         * A checksum of the elements read by the replay, which also keeps the
+         * reads from being optimized away.
+         */
+        private final long checksum;
+
+        private Result(int operationCount,
+                       long elapsedNanos,
+                       long[] histogram,
+                       long checksum) {
+            this.operationCount = operationCount;
+            this.elapsedNanos = elapsedNanos;
+            this.histogram = histogram;
+            this.checksum = checksum;
+        }
+
+        public int getOperationCount() {
+            return operationCount;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Returns the number of operations per second.
+         *
+         * @return the throughput.
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0L ?
+                   0.0 :
+                   operationCount * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns a copy of the latency histogram. Component {@code b > 0}
+         * counts the operations that took {@code [2^b, 2^(b + 1))}
+         * nanoseconds.
+         *
+         * @return the latency histogram.
+         */
+        public long[] getLatencyHistogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Returns an upper bound for the latency of the given percentile of
+         * the operations: the exclusive upper bound of the histogram bucket
+         * containing it.
+         *
+         * @param percentile the percentile within {@code [0, 100]}.
+         * @return the latency bound in nanoseconds.
+         */
+        public long getPercentileNanos(double percentile) {
+            long rank = (long) Math.ceil(operationCount * percentile / 100.0);
+            long seen = 0L;
+
+            for (int bucket = 0; bucket < histogram.length; bucket++) {
+                seen += histogram[bucket];
+
+                if (seen >= rank && seen > 0L) {
+                    return bucketUpperBound(bucket);
+                }
+            }
+
+            return 0L;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%12.0f ops/s, p50 < %d ns, p99 < %d ns, "
+                                 + "p99.9 < %d ns, max < %d ns",
+                                 getThroughput(),
+                                 getPercentileNanos(50.0),
+                                 getPercentileNanos(99.0),
+                                 getPercentileNanos(99.9),
+                                 getPercentileNanos(100.0));
+        }
+
+        /**
+         * Returns the non-empty buckets of the latency histogram, one per
+         * line.
+         *
+         * @return the formatted histogram.
+         */
+        public String formatHistogram() {
+            StringBuilder sb = new StringBuilder();
+
+            for (int bucket = 0; bucket < histogram.length; bucket++) {
+                if (histogram[bucket] != 0L) {
+                    sb.append(String.format("    [%d, %d) ns: %d%n",
+                                            bucket == 0 ?
+                                                0L :
+                                                1L << bucket,
+                                            bucketUpperBound(bucket),
+                                            histogram[bucket]));
+                }
+            }
+
+            return sb.toString();
+        }
+
+        private static long bucketUpperBound(int bucket) {
+            return bucket >= 62 ? Long.MAX_VALUE : 1L << (bucket + 1);
+        }
+    }
+
+    /**
+     * This static inner class adapts the different list types to the traced
+     * operations. The deques use their own {@code addFirst} and
+     * {@code addLast}, and the other lists insert by index.
+     */
+    private static final class Target {
+
+        private final List<Integer> list;
+        private final Consumer<Integer> addFirst;
+        private final Consumer<Integer> addLast;
+
+        private Target(List<Integer> list,
+                       Consumer<Integer> addFirst,
+                       Consumer<Integer> addLast) {
+            this.list = list;
+            this.addFirst = addFirst;
+            this.addLast = addLast;
+        }
+
+        static Target of(List<Integer> list) {
+            if (list instanceof Deque) {
+                Deque<Integer> deque = (Deque<Integer>) list;
+                return new Target(list, deque::addFirst, deque::addLast);
+            }
+
+            return new Target(list, e -> list.add(0, e), list::add);
+        }
+    }
+
+    private TraceReplay() {}
+
+    /**
+     * Reads the trace file at {@code traceFile} into memory.
+     *
+     * @param traceFile the path of the trace file.
+     * @return the trace.
+     * @throws IOException if the file cannot be read or is not a trace file.
+     */
+    public static Trace read(Path traceFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(traceFile)))) {
+            if (in.readInt() != TraceRecordingList.MAGIC) {
+                throw new IOException(traceFile + " is not a trace file.");
+            }
+
+            byte version = in.readByte();
+
+            if (version != TraceRecordingList.VERSION) {
+                throw new IOException(
+                        "Unsupported trace format version " + version + ".");
+            }
+
+            int initialSize = (int) readVarLong(in);
+            byte[] operations = new byte[1024];
+            int[] indices = new int[1024];
+            int count = 0;
+            long recordedNanos = 0L;
+            int operation;
+
+            while ((operation = in.read()) != -1) {
+                if (count == operations.length) {
+                    operations = Arrays.copyOf(operations, 2 * count);
+                    indices = Arrays.copyOf(indices, 2 * count);
+                }
+
+                switch (operation) {
+                    case TraceRecordingList.GET:
+                    case TraceRecordingList.SET:
+                        indices[count] = (int) readVarLong(in);
+                        break;
+
+                    case TraceRecordingList.ADD_FIRST:
+                    case TraceRecordingList.ADD_LAST:
+                        break;
+
+                    default:
+                        throw new IOException(
+                                "Unknown operation code " + operation + ".");
+                }
+
+                operations[count++] = (byte) operation;
+                recordedNanos += readVarLong(in);
+            }
+
+            return new Trace(initialSize,
+                             operations,
+                             indices,
+                             count,
+                             recordedNanos);
+        }
+    }
+
+    /**
+     * Replays {@code trace} against {@code list}, which must be empty. The
+     * list is first filled untimed up to the initial size of the trace. The
+     * elements added or set by the {@code i}th operation equal {@code i}.
+     *
+     * @param trace the trace to replay.
+     * @param list  the empty list to replay against.
+     * @return the measurements of the replay.
+     */
+    public static Result replay(Trace trace, List<Integer> list) {
+        Objects.requireNonNull(trace, "The input trace is null.");
+
+        if (!list.isEmpty()) {
+            throw new IllegalArgumentException("The input list is not empty.");
+        }
+
+        Target target = Target.of(list);
+
+        for (int i = 0; i < trace.initialSize; i++) {
+            target.addLast.accept(-1);
+        }
+
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        long checksum = 0L;
+        long start = System.nanoTime();
+        long previous = start;
+
+        for (int i = 0; i < trace.operationCount; i++) {
+            switch (trace.operations[i]) {
+                case TraceRecordingList.ADD_FIRST:
+                    target.addFirst.accept(i);
+                    break;
+
+                case TraceRecordingList.ADD_LAST:
+                    target.addLast.accept(i);
+                    break;
+
+                case TraceRecordingList.GET:
+                    checksum += target.list.get(trace.indices[i]);
+                    break;
+
+                default:
+                    target.list.set(trace.indices[i], i);
+            }
+
+            long now = System.nanoTime();
+            long latency = now - previous;
+            histogram[latency < 2L ?
+                      0 :
+                      63 - Long.numberOfLeadingZeros(latency)]++;
+            previous = now;
+        }
+
+        return new Result(trace.operationCount,
+                          previous - start,
+                          histogram,
+                          checksum);
+    }
+
+    /**
+     * Replays the trace file given as the first argument against
+     * {@code BlockTreeList}s with the block capacities given as the rest of
+     * the arguments (or the default ones), and against the other list
+     * implementations.
+     *
+     * @param args the trace file and the block capacities.
+     * @throws IOException if the trace file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java " + TraceReplay.class.getName()
+                               + " TRACE_FILE [BLOCK_CAPACITY ...]");
+            System.exit(1);
+        }
+
+        Trace trace = read(Paths.get(args[0]));
+        int[] blockCapacities = args.length == 1 ?
+                DEFAULT_BLOCK_CAPACITIES :
+                Arrays.stream(args, 1, args.length)
+                      .mapToInt(Integer::parseInt)
+                      .toArray();
+
+        System.out.printf("%d operations, initial size %d, "
+                          + "recorded in %d ms%n",
+                          trace.operationCount,
+                          trace.initialSize,
+                          trace.recordedNanos / 1_000_000L);
+
+        for (int blockCapacity : blockCapacities) {
+            BlockTreeList<Integer> list = run(
+                    String.format("BlockTreeList(%d)", blockCapacity),
+                    trace,
+                    () -> new BlockTreeList<>(blockCapacity));
+
+            list.checkInvariants();
+            System.out.println("    invariants OK");
+        }
+
+        run("ArenaBlockTreeList", trace, ArenaBlockTreeList::new);
+        run("BPlusBlockTreeList", trace, BPlusBlockTreeList::new);
+        run("ArrayList", trace, ArrayList::new);
+        run("LinkedList", trace, LinkedList::new);
+    }
+
+    /**
+     * Replays {@code trace} against fresh lists, prints the measurements of
+     * the last replay and returns its list.
+     *
+     * @param name         the name of the configuration.
+     * @param trace        the trace to replay.
+     * @param listSupplier the supplier of the empty lists.
+     * @return the list of the last replay.
+     */
+    private static <L extends List<Integer>> L run(String name,
+                                                   Trace trace,
+                                                   Supplier<L> listSupplier) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            replay(trace, listSupplier.get());
+        }
+
+        L list = listSupplier.get();
+        Result result = replay(trace, list);
+        System.out.printf("%-28s %s%n", name, result);
+        System.out.print(result.formatHistogram());
+        return list;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0L;
+
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+
+            if (b == -1) {
+                throw new EOFException("Truncated trace file.");
+            }
+
+            value |= (long)(b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
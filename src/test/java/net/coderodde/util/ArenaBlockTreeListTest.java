@@ -0,0 +1,157 @@
+package net.coderodde.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author rodde
+ */
+public class ArenaBlockTreeListTest {
+
+    private ArenaBlockTreeList<Integer> treeList;
+
+    @Test
+    public void testGetAndSet() {
+        for (int blockCapacity = 1; blockCapacity <= 13; blockCapacity++) {
+            treeList = new ArenaBlockTreeList<>(blockCapacity);
+
+            for (int i = 4; i >= 0; i--) {
+                assertEquals(4 - i, treeList.size());
+                treeList.addFirst(i);
+                assertEquals(5 - i, treeList.size());
+            }
+
+            for (int i = 5; i < 10; i++) {
+                assertEquals(i, treeList.size());
+                treeList.addLast(i);
+                assertEquals(i + 1, treeList.size());
+            }
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals((Integer) i, treeList.get(i));
+                treeList.set(i, i + 10);
+            }
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals((Integer)(i + 10), treeList.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveFirstAndLastRecycleNodes() {
+        Random random = new Random(13L);
+
+        for (int blockCapacity = 1; blockCapacity <= 7; blockCapacity++) {
+            treeList = new ArenaBlockTreeList<>(blockCapacity);
+            Deque<Integer> deque = new ArrayDeque<>();
+
+            for (int operation = 0; operation < 3000; operation++) {
+                int coin = random.nextInt(10);
+
+                if (coin < 3) {
+                    treeList.addFirst(operation);
+                    deque.addFirst(operation);
+                } else if (coin < 6) {
+                    treeList.addLast(operation);
+                    deque.addLast(operation);
+                } else if (deque.isEmpty()) {
+                    continue;
+                } else if (coin < 8) {
+                    assertEquals(deque.removeFirst(), treeList.removeFirst());
+                } else {
+                    assertEquals(deque.removeLast(), treeList.removeLast());
+                }
+
+                assertEquals(deque.size(), treeList.size());
+            }
+
+            int index = 0;
+
+            for (Integer element : deque) {
+                assertEquals(element, treeList.get(index++));
+            }
+
+            treeList.clear();
+            assertTrue(treeList.isEmpty());
+        }
+    }
+
+    @Test
+    public void testDequeOperations() {
+        Random random = new Random(17L);
+
+        for (int blockCapacity = 1; blockCapacity <= 9; blockCapacity += 4) {
+            treeList = new ArenaBlockTreeList<>(blockCapacity);
+            Deque<Integer> deque = treeList;
+            List<Integer> expected = new ArrayList<>();
+
+            for (int i = 0; i < 20_000; i++) {
+                int operation = random.nextInt(10);
+
+                if (operation < 3 || expected.isEmpty() && operation < 8) {
+                    deque.offerFirst(i);
+                    expected.add(0, i);
+                } else if (operation < 6) {
+                    deque.offerLast(i);
+                    expected.add(i);
+                } else if (operation == 6) {
+                    assertEquals(expected.remove(0), deque.pollFirst());
+                } else if (operation == 7) {
+                    assertEquals(expected.remove(expected.size() - 1),
+                                 deque.pollLast());
+                } else if (!expected.isEmpty()) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.remove(index),
+                                 treeList.remove(index));
+                }
+
+                assertEquals(expected.size(), treeList.size());
+
+                if (!expected.isEmpty()) {
+                    assertEquals(expected.get(0), deque.peekFirst());
+                    assertEquals(expected.get(expected.size() - 1),
+                                 deque.peekLast());
+                }
+            }
+
+            assertEquals(expected, new ArrayList<>(treeList));
+            List<Integer> descending = new ArrayList<>();
+            deque.descendingIterator().forEachRemaining(descending::add);
+            Collections.reverse(descending);
+            assertEquals(expected, descending);
+
+            while (!deque.isEmpty()) {
+                assertEquals(expected.remove(0), deque.pop());
+            }
+
+            assertNull(deque.poll());
+            assertNull(deque.peekLast());
+        }
+    }
+
+    @Test
+    public void testRemoveOccurrence() {
+        treeList = new ArenaBlockTreeList<>(2);
+
+        for (int i = 0; i < 100; i++) {
+            treeList.addLast(i % 10);
+        }
+
+        assertTrue(treeList.removeFirstOccurrence(3));
+        assertTrue(treeList.removeLastOccurrence(3));
+        assertFalse(treeList.removeFirstOccurrence(42));
+        assertEquals(98, treeList.size());
+        assertEquals((Integer) 4, treeList.get(3));
+        assertEquals((Integer) 4, treeList.get(92));
+        assertTrue(treeList.remove((Object) 9));
+        assertEquals((Integer) 0, treeList.get(8));
+    }
+}
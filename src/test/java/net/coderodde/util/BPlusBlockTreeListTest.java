@@ -0,0 +1,195 @@
+package net.coderodde.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author rodde
+ */
+public class BPlusBlockTreeListTest {
+
+    private BPlusBlockTreeList<Integer> treeList;
+
+    @Test
+    public void testGetAndSet() {
+        for (int blockCapacity = 1; blockCapacity <= 13; blockCapacity++) {
+            treeList = new BPlusBlockTreeList<>(blockCapacity);
+
+            for (int i = 4; i >= 0; i--) {
+                assertEquals(4 - i, treeList.size());
+                treeList.addFirst(i);
+                assertEquals(5 - i, treeList.size());
+            }
+
+            for (int i = 5; i < 10; i++) {
+                assertEquals(i, treeList.size());
+                treeList.addLast(i);
+                assertEquals(i + 1, treeList.size());
+            }
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals((Integer) i, treeList.get(i));
+                treeList.set(i, i + 10);
+            }
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals((Integer)(i + 10), treeList.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testManyLevels() {
+        Random random = new Random(7L);
+        treeList = new BPlusBlockTreeList<>(1, 32);
+        Deque<Integer> deque = new ArrayDeque<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            if (random.nextBoolean()) {
+                treeList.addFirst(i);
+                deque.addFirst(i);
+            } else {
+                treeList.addLast(i);
+                deque.addLast(i);
+            }
+        }
+
+        assertTrue(treeList.getIndexHeight() >= 3);
+        List<Integer> expected = new ArrayList<>(deque);
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), treeList.get(i));
+        }
+
+        assertEquals(expected, new ArrayList<>(treeList));
+    }
+
+    @Test
+    public void testSerialization() throws IOException, 
+                                           ClassNotFoundException {
+        treeList = new BPlusBlockTreeList<>(3, 32);
+
+        for (int i = 0; i < 5000; i++) {
+            if (i % 3 == 0) {
+                treeList.addFirst(i);
+            } else {
+                treeList.addLast(i);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(treeList);
+        }
+
+        BPlusBlockTreeList<Integer> copy;
+
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (BPlusBlockTreeList<Integer>) in.readObject();
+        }
+
+        assertEquals(treeList.size(), copy.size());
+
+        for (int i = 0; i < treeList.size(); i++) {
+            assertEquals(treeList.get(i), copy.get(i));
+        }
+
+        copy.addFirst(-1);
+        copy.addLast(-2);
+        assertEquals((Integer) (-1), copy.get(0));
+        assertEquals((Integer) (-2), copy.get(5001));
+    }
+
+    @Test
+    public void testDequeOperations() {
+        Random random = new Random(13L);
+
+        for (int blockCapacity = 1; blockCapacity <= 9; blockCapacity += 4) {
+            treeList = new BPlusBlockTreeList<>(blockCapacity, 32);
+            Deque<Integer> deque = treeList;
+            List<Integer> expected = new ArrayList<>();
+
+            for (int i = 0; i < 30_000; i++) {
+                int operation = random.nextInt(10);
+
+                if (operation < 3 || expected.isEmpty() && operation < 8) {
+                    deque.offerFirst(i);
+                    expected.add(0, i);
+                } else if (operation < 6) {
+                    deque.offerLast(i);
+                    expected.add(i);
+                } else if (operation == 6) {
+                    assertEquals(expected.remove(0), deque.pollFirst());
+                } else if (operation == 7) {
+                    assertEquals(expected.remove(expected.size() - 1),
+                                 deque.pollLast());
+                } else if (!expected.isEmpty()) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.remove(index),
+                                 treeList.remove(index));
+                }
+
+                assertEquals(expected.size(), treeList.size());
+
+                if (!expected.isEmpty()) {
+                    assertEquals(expected.get(0), deque.peekFirst());
+                    assertEquals(expected.get(expected.size() - 1),
+                                 deque.peekLast());
+                }
+            }
+
+            assertEquals(expected, new ArrayList<>(treeList));
+            List<Integer> descending = new ArrayList<>();
+            deque.descendingIterator().forEachRemaining(descending::add);
+            Collections.reverse(descending);
+            assertEquals(expected, descending);
+
+            while (!deque.isEmpty()) {
+                assertEquals(expected.remove(0), deque.pop());
+            }
+
+            assertNull(deque.poll());
+            assertNull(deque.peekLast());
+            assertEquals(0, treeList.getIndexHeight());
+        }
+    }
+
+    @Test
+    public void testRemoveOccurrence() {
+        treeList = new BPlusBlockTreeList<>(2, 32);
+
+        for (int i = 0; i < 100; i++) {
+            treeList.addLast(i % 10);
+        }
+
+        assertTrue(treeList.removeFirstOccurrence(3));
+        assertTrue(treeList.removeLastOccurrence(3));
+        assertFalse(treeList.removeFirstOccurrence(42));
+        assertEquals(98, treeList.size());
+        assertEquals((Integer) 4, treeList.get(3));
+        assertEquals((Integer) 4, treeList.get(92));
+        assertEquals((Integer) 3, treeList.get(12));
+        assertTrue(treeList.remove((Object) 9));
+        assertEquals((Integer) 0, treeList.get(8));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveFirstFromEmpty() {
+        new BPlusBlockTreeList<Integer>().removeFirst();
+    }
+}
@@ -1,6 +1,23 @@
 package net.coderodde.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.junit.Assert.*;
 
 /**
@@ -9,6 +26,9 @@ import static org.junit.Assert.*;
  */
 public class BlockTreeListTest {
     
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
     private BlockTreeList<Integer> treeList;
     
     @Test
@@ -40,4 +60,762 @@ public class BlockTreeListTest {
             }
         }
     }
+    
+    @Test
+    public void testTieredMode() throws IOException {
+        treeList = new BlockTreeList<>(
+                4, 
+                0.3f, 
+                temporaryFolder.newFile("spill.bin").toPath(),
+                3);
+        
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(3L);
+        
+        for (int i = 0; i < 1000; i++) {
+            if (random.nextBoolean()) {
+                treeList.addFirst(i);
+                expected.add(0, i);
+            } else {
+                treeList.addLast(i);
+                expected.add(i);
+            }
+        }
+        
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(expected.size());
+            
+            if (random.nextBoolean()) {
+                assertEquals(expected.get(index), treeList.get(index));
+            } else {
+                assertEquals(expected.set(index, -i), 
+                             treeList.set(index, -i));
+            }
+        }
+        
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), treeList.get(i));
+        }
+        
+        assertTrue(treeList.getBlockCacheMisses() > 0L);
+        assertTrue(treeList.getBlockCacheHits() > 0L);
+        treeList.closeSpillFile();
+    }
+    
+    @Test
+    public void testTieredModeSpillFileStaysBounded() throws IOException {
+        Path spillFile = temporaryFolder.newFile("churn.bin").toPath();
+        treeList = new BlockTreeList<>(25, 0.3f, spillFile, 4);
+        Random random = new Random(17L);
+        
+        // Equal elements serialize as back references, so the blocks grow 
+        // when they get distinct elements.
+        List<Integer> expected = new ArrayList<>();
+        
+        for (int i = 0; i < 2500; i++) {
+            treeList.addLast(0);
+            expected.add(0);
+        }
+        
+        long maximumFileSize = 0L;
+        
+        for (int i = 0; i < 20_000; i++) {
+            int index = random.nextInt(treeList.size());
+            
+            switch (random.nextInt(4)) {
+                case 0:
+                    int element = random.nextInt();
+                    treeList.removeAllAt(new int[]{ index });
+                    treeList.addLast(element);
+                    expected.remove(index);
+                    expected.add(element);
+                    break;
+                    
+                case 1:
+                    treeList.set(index, 0);
+                    expected.set(index, 0);
+                    break;
+                    
+                default:
+                    element = random.nextInt();
+                    treeList.set(index, element);
+                    expected.set(index, element);
+            }
+            
+            maximumFileSize = Math.max(maximumFileSize, Files.size(spillFile));
+        }
+        
+        Path compactFile = temporaryFolder.newFile("compact.bin").toPath();
+        BlockTreeList<Integer> compactList = 
+                new BlockTreeList<>(25, 0.3f, compactFile, 4);
+        
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), treeList.get(i));
+            compactList.addLast(expected.get(i));
+        }
+        
+        for (int i = 0; i < compactList.size(); i++) {
+            compactList.get(i);
+        }
+        
+        // The churned list has more and less full blocks than the compact 
+        // one, and each block is serialized with its own stream header.
+        assertTrue(maximumFileSize <= 3 * Files.size(compactFile));
+        treeList.closeSpillFile();
+        compactList.closeSpillFile();
+    }
+    
+    @Test
+    public void testBatchOperations() {
+        Random random = new Random(29L);
+        
+        for (int blockCapacity = 1; blockCapacity <= 9; blockCapacity++) {
+            treeList = new BlockTreeList<>(blockCapacity);
+            List<Integer> expected = new ArrayList<>();
+            
+            for (int round = 0; round < 60; round++) {
+                int[] indices = randomSortedIndices(random, 
+                                                    expected.size() + 1,
+                                                    random.nextInt(20), 
+                                                    false);
+                List<Integer> elements = new ArrayList<>();
+                
+                for (int i = 0; i < indices.length; i++) {
+                    elements.add(random.nextInt(1000));
+                }
+                
+                treeList.insertAll(indices, elements);
+                
+                for (int i = indices.length - 1; i >= 0; i--) {
+                    expected.add(indices[i], elements.get(i));
+                }
+                
+                assertEquals(expected.size(), treeList.size());
+                
+                if (expected.isEmpty()) {
+                    continue;
+                }
+                
+                indices = randomSortedIndices(random, 
+                                              expected.size(), 
+                                              random.nextInt(15), 
+                                              true);
+                treeList.removeAllAt(indices);
+                
+                for (int i = indices.length - 1; i >= 0; i--) {
+                    expected.remove(indices[i]);
+                }
+                
+                assertEquals(expected.size(), treeList.size());
+                
+                if (expected.isEmpty()) {
+                    continue;
+                }
+                
+                indices = randomSortedIndices(random,
+                                              expected.size(), 
+                                              random.nextInt(10),
+                                              true);
+                elements.clear();
+                
+                for (int index : indices) {
+                    elements.add(-index);
+                    expected.set(index, -index);
+                }
+                
+                treeList.setAll(indices, elements);
+                
+                int[] allIndices = new int[expected.size()];
+                Arrays.setAll(allIndices, i -> i);
+                assertEquals(expected, treeList.getAll(allIndices));
+            }
+            
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), treeList.get(i));
+            }
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchRejectsUnsortedIndices() {
+        treeList = new BlockTreeList<>(2);
+        
+        for (int i = 0; i < 10; i++) {
+            treeList.addLast(i);
+        }
+        
+        treeList.getAll(new int[]{ 3, 1 });
+    }
+    
+    private static int[] randomSortedIndices(Random random,
+                                             int bound,
+                                             int count,
+                                             boolean distinct) {
+        if (distinct) {
+            TreeSet<Integer> set = new TreeSet<>();
+            
+            for (int i = 0; i < count && set.size() < bound; i++) {
+                set.add(random.nextInt(bound));
+            }
+            
+            return set.stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        int[] indices = new int[count];
+        
+        for (int i = 0; i < count; i++) {
+            indices[i] = random.nextInt(bound);
+        }
+        
+        Arrays.sort(indices);
+        return indices;
+    }
+    
+    @Test
+    public void testReverse() {
+        Random random = new Random(30L);
+        
+        for (int blockCapacity = 1; blockCapacity <= 7; blockCapacity++) {
+            treeList = new BlockTreeList<>(blockCapacity);
+            List<Integer> expected = new ArrayList<>();
+            
+            for (int i = 0; i < 200; i++) {
+                treeList.addLast(i);
+                expected.add(i);
+            }
+            
+            for (int round = 0; round < 300; round++) {
+                int from = random.nextInt(expected.size() + 1);
+                int to = from + random.nextInt(expected.size() - from + 1);
+                treeList.reverse(from, to);
+                Collections.reverse(expected.subList(from, to));
+                int index;
+                
+                switch (random.nextInt(5)) {
+                    case 0:
+                        treeList.addFirst(-round);
+                        expected.add(0, -round);
+                        break;
+                        
+                    case 1:
+                        treeList.addLast(-round);
+                        expected.add(-round);
+                        break;
+                        
+                    case 2:
+                        index = random.nextInt(expected.size() + 1);
+                        treeList.insertAll(new int[]{ index }, 
+                                           Arrays.asList(round));
+                        expected.add(index, round);
+                        break;
+                        
+                    case 3:
+                        index = random.nextInt(expected.size());
+                        treeList.removeAllAt(new int[]{ index });
+                        expected.remove(index);
+                        break;
+                        
+                    default:
+                        index = random.nextInt(expected.size());
+                        assertEquals(expected.set(index, round), 
+                                     treeList.set(index, round));
+                }
+                
+                index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), treeList.get(index));
+            }
+            
+            List<Integer> actual = new ArrayList<>();
+            treeList.iterator().forEachRemaining(actual::add);
+            assertEquals(expected, actual);
+            
+            actual.clear();
+            treeList.descendingIterator().forEachRemaining(actual::add);
+            Collections.reverse(actual);
+            assertEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    public void testDescendingIterator() {
+        treeList = new BlockTreeList<>(3);
+        assertFalse(treeList.descendingIterator().hasNext());
+        
+        for (int i = 0; i < 10; i++) {
+            treeList.addLast(i);
+        }
+        
+        Iterator<Integer> iterator = treeList.descendingIterator();
+        
+        for (int i = 9; i >= 0; i--) {
+            assertEquals((Integer) i, iterator.next());
+        }
+        
+        assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testTransformRange() {
+        Random random = new Random(31L);
+        
+        for (int blockCapacity = 1; blockCapacity <= 7; blockCapacity++) {
+            treeList = new BlockTreeList<>(blockCapacity);
+            List<Integer> expected = new ArrayList<>();
+            
+            for (int i = 0; i < 150; i++) {
+                treeList.addLast(i);
+                expected.add(i);
+            }
+            
+            for (int round = 0; round < 300; round++) {
+                int from = random.nextInt(expected.size() + 1);
+                int to = from + random.nextInt(expected.size() - from + 1);
+                int delta = random.nextInt(10);
+                
+                if (random.nextBoolean()) {
+                    treeList.transformRange(from, to, x -> 3 * x + delta);
+                    expected.subList(from, to).replaceAll(x -> 3 * x + delta);
+                } else {
+                    treeList.reverse(from, to);
+                    Collections.reverse(expected.subList(from, to));
+                }
+                
+                if (random.nextBoolean()) {
+                    treeList.addFirst(round);
+                    expected.add(0, round);
+                } else {
+                    treeList.addLast(round);
+                    expected.add(round);
+                }
+                
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.get(index), treeList.get(index));
+            }
+            
+            List<Integer> actual = new ArrayList<>();
+            treeList.iterator().forEachRemaining(actual::add);
+            assertEquals(expected, actual);
+            
+            treeList.replaceAll(x -> -x);
+            expected.replaceAll(x -> -x);
+            actual.clear();
+            treeList.descendingIterator().forEachRemaining(actual::add);
+            Collections.reverse(actual);
+            assertEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    public void testTransformRangeIsLazy() {
+        treeList = new BlockTreeList<>(10);
+        
+        for (int i = 0; i < 10_000; i++) {
+            treeList.addLast(i);
+        }
+        
+        int[] calls = new int[1];
+        
+        treeList.transformRange(0, treeList.size(), x -> {
+            calls[0]++;
+            return x + 1;
+        });
+        
+        assertEquals(0, calls[0]);
+        assertEquals((Integer) 5001, treeList.get(5000));
+        assertEquals(10, calls[0]);
+        
+        treeList.transformRange(3, 9_997, x -> 2 * x);
+        assertEquals((Integer) 3, treeList.get(2));
+        assertEquals((Integer) 8, treeList.get(3));
+        assertEquals((Integer) 10_002, treeList.get(5000));
+        assertEquals((Integer) 9_998, treeList.get(9_997));
+    }
+    
+    @Test
+    public void testManyTransformsInARow() {
+        treeList = new BlockTreeList<>(4);
+        
+        for (int i = 0; i < 100; i++) {
+            treeList.addLast(i);
+        }
+        
+        for (int round = 0; round < 50_000; round++) {
+            treeList.transformRange(0, 10, x -> x + 1);
+        }
+        
+        assertEquals((Integer) 50_003, treeList.get(3));
+        assertEquals((Integer) 50_009, treeList.get(9));
+        assertEquals((Integer) 10, treeList.get(10));
+        
+        for (int round = 0; round < 50_000; round++) {
+            treeList.transformRange(0, treeList.size(), x -> x - 1);
+        }
+        
+        assertEquals((Integer) 3, treeList.get(3));
+        assertEquals((Integer) (-49_990), treeList.get(10));
+        assertEquals((Integer) (-49_901), treeList.get(99));
+    }
+    
+    @Test
+    public void testReplaceAllIsEager() {
+        treeList = new BlockTreeList<>(10);
+        
+        for (int i = 0; i < 1000; i++) {
+            treeList.addLast(i);
+        }
+        
+        treeList.transformRange(100, 900, x -> 2 * x);
+        int[] calls = new int[1];
+        
+        treeList.replaceAll(x -> {
+            calls[0]++;
+            return x + 1;
+        });
+        
+        assertEquals(1000, calls[0]);
+        treeList.set(500, 0);
+        assertEquals((Integer) 0, treeList.get(500));
+        assertEquals((Integer) 100, treeList.get(99));
+        assertEquals((Integer) 201, treeList.get(100));
+        assertEquals((Integer) 1799, treeList.get(899));
+        assertEquals((Integer) 1000, treeList.get(999));
+        assertEquals(1000, calls[0]);
+        
+        try {
+            treeList.replaceAll(x -> {
+                throw new IllegalStateException();
+            });
+            fail("replaceAll should throw the exception of the operator.");
+        } catch (IllegalStateException ex) {
+        }
+    }
+    
+    @Test
+    public void testBuilder() {
+        for (int blockCapacity = 1; blockCapacity <= 9; blockCapacity++) {
+            BlockTreeList.Builder<Integer> builder = 
+                    new BlockTreeList.Builder<>(blockCapacity);
+            
+            for (int i = 0; i < 1000; i++) {
+                builder.add(i);
+            }
+            
+            treeList = builder.build();
+            assertEquals(0, builder.size());
+            assertEquals(1000, treeList.size());
+            
+            for (int i = 0; i < 1000; i++) {
+                assertEquals((Integer) i, treeList.get(i));
+            }
+            
+            treeList.addFirst(-1);
+            treeList.addLast(1000);
+            assertEquals((Integer)(-1), treeList.get(0));
+            assertEquals((Integer) 1000, treeList.get(1001));
+            assertTrue(builder.build().isEmpty());
+        }
+    }
+    
+    @Test
+    public void testCollector() {
+        List<Integer> expected = 
+                IntStream.range(0, 50_000)
+                         .boxed()
+                         .collect(Collectors.toList());
+        
+        List<List<Integer>> results = Arrays.asList(
+                expected.stream()
+                        .collect(BlockTreeList.Builder.collector(7)),
+                expected.parallelStream()
+                        .collect(BlockTreeList.Builder.collector()));
+        
+        for (List<Integer> result : results) {
+            assertEquals(expected.size(), result.size());
+            
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), result.get(i));
+            }
+        }
+    }
+    
+    @Test
+    public void testAppendAll() {
+        for (int blockCapacity = 1; blockCapacity <= 9; blockCapacity++) {
+            treeList = new BlockTreeList<>(blockCapacity);
+            List<Integer> expected = new ArrayList<>();
+            
+            for (int round = 0; round < 5; round++) {
+                List<Integer> chunk = new ArrayList<>();
+                
+                for (int i = 0; i < round * 700 + 3; i++) {
+                    chunk.add(expected.size() + chunk.size());
+                }
+                
+                treeList.addFirst(-round - 1);
+                expected.add(0, -round - 1);
+                assertTrue(treeList.addAll(chunk));
+                expected.addAll(chunk);
+            }
+            
+            assertEquals(expected.size(), treeList.size());
+            
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), treeList.get(i));
+            }
+        }
+        
+        treeList = new BlockTreeList<>(Arrays.asList(1, 2, 3));
+        assertEquals(3, treeList.size());
+        
+        for (int i = 0; i < 3; i++) {
+            assertEquals((Integer)(i + 1), treeList.get(i));
+        }
+    }
+    
+    @Test
+    public void testHashCodeAndEquals() {
+        Random random = new Random(7L);
+        treeList = new BlockTreeList<>(5);
+        List<Integer> expected = new ArrayList<>();
+        
+        for (int i = 0; i < 2000; i++) {
+            treeList.addLast(i);
+            expected.add(i);
+        }
+        
+        assertEquals(expected.hashCode(), treeList.hashCode());
+        
+        for (int round = 0; round < 200; round++) {
+            int fromIndex = random.nextInt(expected.size());
+            int toIndex = fromIndex + random.nextInt(expected.size() 
+                                                    - fromIndex + 1);
+            
+            switch (random.nextInt(3)) {
+                case 0:
+                    treeList.reverse(fromIndex, toIndex);
+                    Collections.reverse(expected.subList(fromIndex, toIndex));
+                    break;
+                    
+                case 1:
+                    treeList.transformRange(fromIndex, toIndex, x -> x + 1);
+                    expected.subList(fromIndex, toIndex)
+                            .replaceAll(x -> x + 1);
+                    break;
+                    
+                default:
+                    treeList.set(fromIndex, round);
+                    expected.set(fromIndex, round);
+            }
+            
+            assertEquals(expected.hashCode(), treeList.hashCode());
+        }
+        
+        BlockTreeList<Integer> other = new BlockTreeList<>(3);
+        other.appendAll(expected);
+        assertEquals(treeList, other);
+        assertEquals(other, treeList);
+        assertEquals(treeList.hashCode(), other.hashCode());
+        
+        other.set(1000, -1);
+        assertNotEquals(treeList, other);
+        assertNotEquals(other, treeList);
+        assertEquals(1, new BlockTreeList<Integer>().hashCode());
+    }
+    
+    @Test
+    public void testDiff() {
+        treeList = new BlockTreeList<>(4);
+        BlockTreeList<Integer> other = new BlockTreeList<>(7);
+        
+        for (int i = 0; i < 10_000; i++) {
+            treeList.addLast(i);
+            other.addLast(i);
+        }
+        
+        assertTrue(treeList.diff(other).isEmpty());
+        
+        other.set(10, -1);
+        other.set(11, -1);
+        other.set(5000, -1);
+        other.reverse(7000, 7003);
+        other.addLast(0);
+        other.addLast(0);
+        
+        for (List<int[]> ranges : Arrays.asList(treeList.diff(other),
+                                                other.diff(treeList))) {
+            assertEquals(5, ranges.size());
+            assertArrayEquals(new int[]{ 10, 12 }, ranges.get(0));
+            assertArrayEquals(new int[]{ 5000, 5001 }, ranges.get(1));
+            assertArrayEquals(new int[]{ 7000, 7001 }, ranges.get(2));
+            assertArrayEquals(new int[]{ 7002, 7003 }, ranges.get(3));
+            assertArrayEquals(new int[]{ 10_000, 10_002 }, ranges.get(4));
+        }
+    }
+    
+    @Test
+    public void testDiffWithCollidingHashCodes() {
+        treeList = new BlockTreeList<>(4);
+        BlockTreeList<Integer> other = new BlockTreeList<>(4);
+        treeList.addAll(Arrays.asList(5, 0, 31, 7));
+        other.addAll(Arrays.asList(5, 1, 0, 7));
+        
+        assertEquals(treeList.hashCode(), other.hashCode());
+        assertFalse(treeList.equals(other));
+        assertEquals(1, treeList.diff(other).size());
+        assertArrayEquals(new int[]{ 1, 3 }, treeList.diff(other).get(0));
+        
+        for (int i = 0; i < 1000; i++) {
+            treeList.addLast(i);
+            other.addLast(i);
+        }
+        
+        treeList.set(500, 0);
+        treeList.set(501, 31);
+        other.set(500, 1);
+        other.set(501, 0);
+        
+        List<int[]> ranges = other.diff(treeList);
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new int[]{ 1, 3 }, ranges.get(0));
+        assertArrayEquals(new int[]{ 500, 502 }, ranges.get(1));
+    }
+    
+    @Test
+    public void testCheckInvariants() {
+        Random random = new Random(11L);
+        
+        for (int blockCapacity = 1; blockCapacity <= 9; blockCapacity += 2) {
+            treeList = new BlockTreeList<>(blockCapacity);
+            List<Integer> expected = new ArrayList<>();
+            treeList.checkInvariants();
+            
+            for (int round = 0; round < 300; round++) {
+                int size = treeList.size();
+                int fromIndex = random.nextInt(size + 1);
+                int toIndex = fromIndex + random.nextInt(size - fromIndex + 1);
+                
+                switch (random.nextInt(5)) {
+                    case 0:
+                        treeList.addFirst(round);
+                        expected.add(0, round);
+                        break;
+                        
+                    case 1:
+                        treeList.insertAll(new int[]{ fromIndex, toIndex }, 
+                                           Arrays.asList(round, round));
+                        expected.add(toIndex, round);
+                        expected.add(fromIndex, round);
+                        break;
+                        
+                    case 2:
+                        treeList.reverse(fromIndex, toIndex);
+                        Collections.reverse(
+                                expected.subList(fromIndex, toIndex));
+                        break;
+                        
+                    case 3:
+                        treeList.transformRange(fromIndex, toIndex, x -> -x);
+                        expected.subList(fromIndex, toIndex)
+                                .replaceAll(x -> -x);
+                        break;
+                        
+                    default:
+                        treeList.addLast(round);
+                        expected.add(round);
+                }
+                
+                if (round % 10 == 0) {
+                    treeList.hashCode();
+                }
+                
+                // The checks run with the lazy flags in place.
+                treeList.checkInvariants();
+            }
+            
+            List<Integer> actual = new ArrayList<>();
+            treeList.iterator().forEachRemaining(actual::add);
+            assertEquals(expected, actual);
+            treeList.checkInvariants();
+        }
+    }
+    
+    @Test
+    public void testCheckInvariantsKeepsTransformationsPending() {
+        treeList = new BlockTreeList<>(4);
+        
+        for (int i = 0; i < 1000; i++) {
+            treeList.addLast(i);
+        }
+        
+        int[] calls = new int[1];
+        treeList.reverse(100, 900);
+        treeList.transformRange(0, 1000, x -> {
+            calls[0]++;
+            return x + 1;
+        });
+        
+        treeList.checkInvariants();
+        assertEquals(0, calls[0]);
+        assertEquals((Integer) 900, treeList.get(100));
+        assertEquals(4, calls[0]);
+        treeList.checkInvariants();
+    }
+    
+    @Test
+    public void testLoadFromFile() throws IOException {
+        Path path = temporaryFolder.newFile("records.txt").toPath();
+        StringBuilder sb = new StringBuilder();
+        
+        for (int i = 0; i < 1_000_000; i++) {
+            sb.append(i).append('\n');
+        }
+        
+        Files.write(path, sb.toString().getBytes(StandardCharsets.US_ASCII));
+        treeList = BlockTreeList.load(
+                path, 
+                buffer -> Integer.valueOf(
+                        StandardCharsets.US_ASCII.decode(buffer).toString()),
+                4);
+        
+        assertEquals(1_000_000, treeList.size());
+        
+        for (int i = 0; i < treeList.size(); i += 997) {
+            assertEquals((Integer) i, treeList.get(i));
+        }
+        
+        assertEquals((Integer) 999_999, treeList.get(999_999));
+        treeList.checkInvariants();
+    }
+    
+    @Test
+    public void testLoadSmallChunks() throws IOException {
+        String text = "a\n\nbcd\nefghijklmnopqrstuvwxyz0123456789\nlast";
+        List<String> expected = Arrays.asList(text.split("\n", -1));
+        
+        for (int parallelism = 1; parallelism <= 3; parallelism++) {
+            for (int chunkBytes = 1; chunkBytes <= 9; chunkBytes++) {
+                BlockTreeList<String> list = BlockTreeList.load(
+                        Channels.newChannel(new ByteArrayInputStream(
+                                text.getBytes(StandardCharsets.US_ASCII))),
+                        buffer -> StandardCharsets.US_ASCII.decode(buffer)
+                                                           .toString(),
+                        parallelism,
+                        2,
+                        chunkBytes);
+                
+                assertEquals(expected.size(), list.size());
+                
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i), list.get(i));
+                }
+                
+                list.checkInvariants();
+            }
+        }
+        
+        assertTrue(BlockTreeList.load(
+                Channels.newChannel(new ByteArrayInputStream(new byte[0])),
+                buffer -> buffer.remaining(),
+                2).isEmpty());
+    }
 }
@@ -0,0 +1,136 @@
+package net.coderodde.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author rodde
+ */
+public class CharBlockTreeListTest {
+
+    private static final String ALPHABET = "abc\n";
+
+    @Test
+    public void testInsertAndDelete() {
+        Random random = new Random(3L);
+
+        for (int blockCapacity = 1; blockCapacity <= 17; blockCapacity += 4) {
+            CharBlockTreeList text = new CharBlockTreeList(blockCapacity);
+            StringBuilder expected = new StringBuilder();
+
+            for (int operation = 0; operation < 2000; operation++) {
+                if (random.nextInt(3) > 0 || expected.length() == 0) {
+                    int offset = random.nextInt(expected.length() + 1);
+                    String inserted = randomText(random, random.nextInt(40));
+                    text.insert(offset, inserted);
+                    expected.insert(offset, inserted);
+                } else {
+                    int fromIndex = random.nextInt(expected.length());
+                    int toIndex = fromIndex + random.nextInt(
+                            Math.min(30, expected.length() - fromIndex) + 1);
+                    text.delete(fromIndex, toIndex);
+                    expected.delete(fromIndex, toIndex);
+                }
+
+                assertEquals(expected.length(), text.length());
+            }
+
+            assertEquals(expected.toString(), text.toString());
+
+            for (int i = 0; i < expected.length(); i++) {
+                assertEquals(expected.charAt(i), text.charAt(i));
+            }
+        }
+    }
+
+    @Test
+    public void testLineIndex() {
+        Random random = new Random(5L);
+        String content = randomText(random, 5000);
+        CharBlockTreeList text = new CharBlockTreeList(content, 16);
+        text.insert(2500, "\n\nx\n");
+        text.delete(100, 140);
+        content = new StringBuilder(content).insert(2500, "\n\nx\n")
+                                            .delete(100, 140)
+                                            .toString();
+
+        String[] lines = content.split("\n", -1);
+        assertEquals(lines.length, text.getLineCount());
+        int offset = 0;
+
+        for (int line = 0; line < lines.length; line++) {
+            assertEquals(offset, text.lineToOffset(line));
+
+            for (int i = 0; i <= lines[line].length(); i++) {
+                if (offset + i <= content.length()) {
+                    assertEquals(line, text.offsetToLine(offset + i));
+                }
+            }
+
+            offset += lines[line].length() + 1;
+        }
+    }
+
+    @Test
+    public void testSubSequence() {
+        CharBlockTreeList text = new CharBlockTreeList("hello\nworld", 3);
+        CharSequence view = text.subSequence(2, 9);
+        assertEquals(7, view.length());
+        assertEquals("llo\nwor", view.toString());
+        assertEquals("o\nw", view.subSequence(2, 5).toString());
+        assertEquals('w', view.charAt(4));
+
+        text.append("!");
+        assertEquals("hello\nworld!", text.toString());
+
+        try {
+            view.charAt(0);
+            fail("The view should fail after a modification.");
+        } catch (ConcurrentModificationException ex) {
+        }
+    }
+
+    @Test
+    public void testInsertOwnSubSequence() {
+        String content = "abc\ndefgh\nijklmnop\nqrstuvwxyz0123";
+        CharBlockTreeList text = new CharBlockTreeList(content, 4);
+        text.insert(20, text.subSequence(3, 14));
+        content = new StringBuilder(content)
+                .insert(20, content.substring(3, 14))
+                .toString();
+        assertEquals(content, text.toString());
+        assertEquals(content.split("\n", -1).length, text.getLineCount());
+
+        text.insert(1, text.subSequence(5, 7));
+        content = new StringBuilder(content)
+                .insert(1, content.substring(5, 7))
+                .toString();
+        assertEquals(content, text.toString());
+    }
+
+    @Test
+    public void testInsertItself() {
+        String content = "abc\ndefgh\nijklmnop\nqrstuvwxyz0123";
+        CharBlockTreeList text = new CharBlockTreeList(content, 4);
+        text.insert(6, text);
+        content = new StringBuilder(content).insert(6, content).toString();
+        assertEquals(content, text.toString());
+        assertEquals(content.split("\n", -1).length, text.getLineCount());
+
+        text.append(text);
+        assertEquals(content + content, text.toString());
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return sb.toString();
+    }
+}
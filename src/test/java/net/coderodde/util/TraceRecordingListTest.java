@@ -0,0 +1,103 @@
+package net.coderodde.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author rodde
+ */
+public class TraceRecordingListTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordAndRead() throws IOException {
+        Path traceFile = folder.newFile("trace.bin").toPath();
+        BlockTreeList<String> list = new BlockTreeList<>(4);
+        list.addLast("x");
+        list.addLast("y");
+        Random random = new Random(17L);
+
+        try (TraceRecordingList<String> recorder =
+                new TraceRecordingList<>(list, traceFile)) {
+            for (int i = 0; i < 1000; i++) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        recorder.addFirst("a" + i);
+                        break;
+
+                    case 1:
+                        recorder.addLast("b" + i);
+                        break;
+
+                    case 2:
+                        recorder.get(random.nextInt(recorder.size()));
+                        break;
+
+                    default:
+                        recorder.set(random.nextInt(recorder.size()), "c");
+                }
+            }
+
+            assertEquals(1000L, recorder.getOperationCount());
+            assertSame(list, recorder.getList());
+        }
+
+        TraceReplay.Trace trace = TraceReplay.read(traceFile);
+        assertEquals(2, trace.getInitialSize());
+        assertEquals(1000, trace.getOperationCount());
+        assertTrue(trace.getRecordedNanos() >= 0L);
+    }
+
+    @Test
+    public void testRecordThroughListAndDequeInterfaces() throws IOException {
+        Path traceFile = folder.newFile("aliases.bin").toPath();
+        BlockTreeList<Integer> list = new BlockTreeList<>(4);
+
+        try (TraceRecordingList<Integer> recorder =
+                new TraceRecordingList<>(list, traceFile)) {
+            fillThroughList(recorder);
+            fillThroughDeque(recorder);
+            assertEquals(8, recorder.size());
+            assertEquals(list, recorder);
+            assertEquals((Integer) 7, list.get(0));
+            assertEquals((Integer) 4, list.get(2));
+            assertEquals(10L, recorder.getOperationCount());
+        }
+
+        TraceReplay.Trace trace = TraceReplay.read(traceFile);
+        assertEquals(10, trace.getOperationCount());
+
+        BlockTreeList<Integer> replayed = new BlockTreeList<>(4);
+        TraceReplay.replay(trace, replayed);
+        assertEquals(8, replayed.size());
+    }
+
+    private static void fillThroughList(List<Integer> list) {
+        list.add(1);
+        list.addAll(Arrays.asList(2, 3, 4));
+        list.set(0, list.get(3));
+    }
+
+    private static void fillThroughDeque(Deque<Integer> deque) {
+        deque.offer(5);
+        deque.offerLast(6);
+        deque.offerFirst(8);
+        deque.push(7);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherFiles() throws IOException {
+        TraceReplay.read(folder.newFile("empty.bin").toPath());
+    }
+}
@@ -0,0 +1,78 @@
+package net.coderodde.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author rodde
+ */
+public class TraceReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplayAgreesAcrossLists() throws IOException {
+        Path traceFile = folder.newFile("trace.bin").toPath();
+        Random random = new Random(19L);
+
+        try (TraceRecordingList<Integer> recorder =
+                new TraceRecordingList<>(new BlockTreeList<>(), traceFile)) {
+            for (int i = 0; i < 5000; i++) {
+                int coin = random.nextInt(10);
+
+                if (coin < 3 || recorder.size() == 0) {
+                    recorder.addFirst(i);
+                } else if (coin < 6) {
+                    recorder.addLast(i);
+                } else if (coin < 8) {
+                    recorder.get(random.nextInt(recorder.size()));
+                } else {
+                    recorder.set(random.nextInt(recorder.size()), i);
+                }
+            }
+        }
+
+        TraceReplay.Trace trace = TraceReplay.read(traceFile);
+        BlockTreeList<Integer> blockTreeList = new BlockTreeList<>(7);
+        TraceReplay.Result expected =
+                TraceReplay.replay(trace, blockTreeList);
+        blockTreeList.checkInvariants();
+
+        List<List<Integer>> others = Arrays.asList(
+                new ArrayList<>(),
+                new LinkedList<>(),
+                new ArenaBlockTreeList<>(5),
+                new BPlusBlockTreeList<>(5));
+
+        for (List<Integer> other : others) {
+            TraceReplay.Result result = TraceReplay.replay(trace, other);
+            assertEquals(expected.getChecksum(), result.getChecksum());
+            assertEquals(blockTreeList.size(), other.size());
+
+            for (int i = 0; i < other.size(); i++) {
+                assertEquals(blockTreeList.get(i), other.get(i));
+            }
+        }
+
+        long histogramTotal = 0L;
+
+        for (long count : expected.getLatencyHistogram()) {
+            histogramTotal += count;
+        }
+
+        assertEquals(5000L, histogramTotal);
+        assertTrue(expected.getPercentileNanos(50.0)
+                   <= expected.getPercentileNanos(100.0));
+    }
+}